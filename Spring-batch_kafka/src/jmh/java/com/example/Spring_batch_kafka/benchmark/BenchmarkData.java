@@ -0,0 +1,51 @@
+package com.example.Spring_batch_kafka.benchmark;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.reader.CustomerLineParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Rows of the bundled customers.csv, shared by the benchmarks. Runs from the module directory.
+ */
+final class BenchmarkData {
+
+    static final Path CSV = Paths.get("src/main/resources/customers.csv");
+
+    private BenchmarkData() {
+    }
+
+    static List<String> lines() {
+        try {
+            List<String> lines = Files.readAllLines(CSV, StandardCharsets.UTF_8);
+            return lines.subList(1, lines.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static List<Customer> customers() {
+        CustomerLineParser parser = new CustomerLineParser();
+        List<Customer> customers = new ArrayList<>();
+        List<String> lines = lines();
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                Customer customer = parser.mapLine(lines.get(i), i + 2);
+                customer.setProcessedAt(new Date());
+                customer.setProcessedBy("batch-partition-1");
+                customers.add(customer);
+            } catch (Exception e) {
+                throw new IllegalStateException("Bad benchmark row " + (i + 2), e);
+            }
+        }
+        return customers;
+    }
+}
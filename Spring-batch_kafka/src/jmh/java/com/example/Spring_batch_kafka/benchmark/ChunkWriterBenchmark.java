@@ -0,0 +1,129 @@
+package com.example.Spring_batch_kafka.benchmark;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.repository.CustomerAggregateRepository;
+import com.example.Spring_batch_kafka.repository.CustomerRepository;
+import com.example.Spring_batch_kafka.service.CustomerAggregates;
+import com.example.Spring_batch_kafka.service.CustomerCache;
+import com.example.Spring_batch_kafka.writer.CustomerJdbcWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.data.RepositoryItemWriter;
+import org.springframework.batch.item.data.builder.RepositoryItemWriterBuilder;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one 50-item chunk to embedded H2 in a transaction. "repository" is the
+ * RepositoryItemWriter(save) path the jobs originally used. "jdbc" is CustomerJdbcWriter in
+ * upsert mode, including its customer_aggregates update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkWriterBenchmark {
+
+    private static final int CHUNK_SIZE = 50;
+
+    @Param({"repository", "jdbc"})
+    private String writer;
+
+    private EmbeddedDatabase database;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+    private ItemWriter<Customer> itemWriter;
+    private List<Customer> customers;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(database);
+        entityManagerFactory.setPackagesToScan("com.example.Spring_batch_kafka.entity");
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create",
+                "hibernate.jdbc.batch_size", CHUNK_SIZE));
+        entityManagerFactory.afterPropertiesSet();
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory.getObject()));
+
+        if ("repository".equals(writer)) {
+            CustomerRepository repository = new JpaRepositoryFactory(
+                    SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory.getObject()))
+                    .getRepository(CustomerRepository.class);
+            RepositoryItemWriter<Customer> repositoryWriter = new RepositoryItemWriterBuilder<Customer>()
+                    .repository(repository)
+                    .methodName("save")
+                    .build();
+            repositoryWriter.afterPropertiesSet();
+            itemWriter = repositoryWriter;
+        } else {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            itemWriter = new CustomerJdbcWriter(jdbcTemplate,
+                    new CustomerCache(new NoOpCacheManager(), new SimpleMeterRegistry()),
+                    new CustomerAggregates(new CustomerAggregateRepository(new NamedParameterJdbcTemplate(jdbcTemplate)), 16),
+                    false, "upsert");
+        }
+        customers = BenchmarkData.customers();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        new JdbcTemplate(database).execute("TRUNCATE TABLE customers");
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManagerFactory.destroy();
+        database.shutdown();
+    }
+
+    @Benchmark
+    public void writeChunk() {
+        int from = next;
+        next = next + CHUNK_SIZE >= customers.size() ? 0 : next + CHUNK_SIZE;
+        Chunk<Customer> chunk = new Chunk<>(customers.subList(from, from + CHUNK_SIZE));
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                itemWriter.write(chunk);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.Spring_batch_kafka.benchmark;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.reader.CustomerReaderFactory;
+import com.example.Spring_batch_kafka.reader.MappedCustomerItemReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole generated CSV file read through the tokenizer/bean-wrapper reader and through
+ * {@link MappedCustomerItemReader}, open to close. Add -prof gc to the jmh.args for the bytes
+ * allocated per file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CsvReaderBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    private Path csv;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] genders = {"Male", "Female", "Genderqueer", "Non-binary"};
+        String[] countries = {"China", "Indonesia", "Brazil", "Russia", "United States"};
+        csv = Files.createTempFile("customers-bench", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write("id,firstName,lastName,email,gender,contactNo,country,dob\n");
+            for (int i = 1; i <= rows; i++) {
+                writer.write(i + ",First" + i + ",Last" + i + ",user" + i + "@example.com,"
+                        + genders[i % genders.length] + ",970-613-" + (1000 + i % 9000) + ","
+                        + countries[i % countries.length] + ",24/06/2012\n");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public long flatFileItemReader() throws Exception {
+        FlatFileItemReader<Customer> reader = new FlatFileItemReader<>();
+        reader.setResource(new FileSystemResource(csv));
+        reader.setLinesToSkip(1);
+        reader.setLineMapper(CustomerReaderFactory.beanWrapperLineMapper());
+        reader.setSaveState(false);
+        return drain(reader);
+    }
+
+    @Benchmark
+    public long mappedCustomerItemReader() throws Exception {
+        MappedCustomerItemReader reader = new MappedCustomerItemReader(csv);
+        reader.setSaveState(false);
+        return drain(reader);
+    }
+
+    private long drain(AbstractItemCountingItemStreamItemReader<Customer> reader) throws Exception {
+        long count = 0;
+        reader.open(new ExecutionContext());
+        try {
+            while (reader.read() != null) {
+                count++;
+            }
+        } finally {
+            reader.close();
+        }
+        if (count != rows) {
+            throw new IllegalStateException("Read " + count + " rows, expected " + rows);
+        }
+        return count;
+    }
+}
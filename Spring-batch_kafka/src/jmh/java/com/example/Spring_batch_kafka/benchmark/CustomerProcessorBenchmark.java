@@ -0,0 +1,51 @@
+package com.example.Spring_batch_kafka.benchmark;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.processor.CustomerProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CustomerProcessor#process}. latencyMs is batch.processor.simulated-latency-ms. 0
+ * measures the transformation alone; larger values show how the simulated sleep dominates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerProcessorBenchmark {
+
+    @Param({"0", "1"})
+    private long latencyMs;
+
+    private CustomerProcessor processor;
+    private List<Customer> customers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        processor = new CustomerProcessor();
+        processor.setSimulatedLatencyMs(latencyMs);
+        customers = BenchmarkData.customers();
+    }
+
+    @Benchmark
+    public Customer process() throws Exception {
+        next = next + 1 == customers.size() ? 0 : next + 1;
+        return processor.process(customers.get(next));
+    }
+}
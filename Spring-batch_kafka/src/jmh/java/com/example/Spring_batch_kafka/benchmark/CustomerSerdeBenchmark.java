@@ -0,0 +1,100 @@
+package com.example.Spring_batch_kafka.benchmark;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.serde.CustomerBinaryDeserializer;
+import com.example.Spring_batch_kafka.serde.CustomerBinarySerializer;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka value serde for {@link Customer}, configured the way KafkaConfig does it for each
+ * kafka.serde.format. Setup prints the average record size of each format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerSerdeBenchmark {
+
+    private static final String TOPIC = "customer-topic";
+
+    @Param({"json", "binary"})
+    private String format;
+
+    private Serializer<Customer> serializer;
+    private Deserializer<Customer> deserializer;
+    private List<Customer> customers;
+    private List<byte[]> encoded;
+    private RecordHeaders headers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        if ("json".equals(format)) {
+            JsonDeserializer<Customer> json = new JsonDeserializer<>(Customer.class);
+            json.addTrustedPackages("*");
+            serializer = new JsonSerializer<>();
+            deserializer = json;
+        } else {
+            serializer = new CustomerBinarySerializer();
+            deserializer = new CustomerBinaryDeserializer();
+        }
+        customers = BenchmarkData.customers();
+        encoded = new ArrayList<>(customers.size());
+        headers = new RecordHeaders();
+        long bytes = 0;
+        for (Customer customer : customers) {
+            byte[] value = serializer.serialize(TOPIC, headers = new RecordHeaders(), customer);
+            encoded.add(value);
+            bytes += value.length;
+            for (Header header : headers) {
+                bytes += header.key().length() + header.value().length;
+            }
+        }
+        if (!deserializer.deserialize(TOPIC, headers, encoded.get(encoded.size() - 1))
+                .equals(customers.get(customers.size() - 1))) {
+            throw new IllegalStateException(format + " did not round-trip");
+        }
+        System.out.printf("%n%s: %.1f bytes per record, value and headers%n", format, (double) bytes / customers.size());
+    }
+
+    @TearDown
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        next = next + 1 == customers.size() ? 0 : next + 1;
+        return serializer.serialize(TOPIC, new RecordHeaders(), customers.get(next));
+    }
+
+    @Benchmark
+    public Customer deserialize() {
+        next = next + 1 == encoded.size() ? 0 : next + 1;
+        return deserializer.deserialize(TOPIC, headers, encoded.get(next));
+    }
+}
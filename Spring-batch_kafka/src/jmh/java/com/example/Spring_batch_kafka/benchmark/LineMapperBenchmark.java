@@ -0,0 +1,59 @@
+package com.example.Spring_batch_kafka.benchmark;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.reader.CustomerLineParser;
+import com.example.Spring_batch_kafka.reader.CustomerReaderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.file.LineMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One CSV line to a {@link Customer}. The readers in BatchProducerConfig and
+ * PartitionedBatchConfig use one of these two mappers, chosen by batch.csv.reader.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineMapperBenchmark {
+
+    private List<String> lines;
+    private LineMapper<Customer> beanWrapper;
+    private LineMapper<Customer> parser;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        lines = BenchmarkData.lines();
+        beanWrapper = CustomerReaderFactory.beanWrapperLineMapper();
+        parser = new CustomerLineParser();
+    }
+
+    @Benchmark
+    public Customer beanWrapperLineMapper() throws Exception {
+        return beanWrapper.mapLine(nextLine(), next);
+    }
+
+    @Benchmark
+    public Customer customerLineParser() throws Exception {
+        return parser.mapLine(nextLine(), next);
+    }
+
+    private String nextLine() {
+        next = next + 1 == lines.size() ? 0 : next + 1;
+        return lines.get(next);
+    }
+}
@@ -2,12 +2,16 @@ package com.example.Spring_batch_kafka;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableCaching
 @EnableKafka
 @EnableAsync
+@EnableScheduling
 public class SpringBatchKafkaApplication {
 
 	public static void main(String[] args) {
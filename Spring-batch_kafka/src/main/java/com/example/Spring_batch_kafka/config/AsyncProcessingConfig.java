@@ -0,0 +1,73 @@
+package com.example.Spring_batch_kafka.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executor that fans chunk items out to {@code CustomerProcessor} when
+ * batch.processor.async.enabled=true. The concurrency cap is shared by all partitions.
+ * Virtual threads need a JDK 21+ runtime; on older runtimes a bounded platform pool is used.
+ */
+@Configuration
+@Slf4j
+public class AsyncProcessingConfig {
+
+    @Value("${batch.processor.async.enabled:true}")
+    private boolean enabled;
+
+    @Value("${batch.processor.async.concurrency:16}")
+    private int concurrency;
+
+    @Value("${batch.processor.async.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <I, O> AsyncItemProcessor<I, O> asyncProcessor(ItemProcessor<I, O> delegate) {
+        AsyncItemProcessor<I, O> processor = new AsyncItemProcessor<>();
+        processor.setDelegate(delegate);
+        processor.setTaskExecutor(itemProcessorExecutor());
+        return processor;
+    }
+
+    public <T> AsyncItemWriter<T> asyncWriter(ItemWriter<T> delegate) {
+        AsyncItemWriter<T> writer = new AsyncItemWriter<>();
+        writer.setDelegate(delegate);
+        return writer;
+    }
+
+    @Bean
+    public TaskExecutor itemProcessorExecutor() {
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("batch-processor-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(concurrency);
+            return executor;
+        }
+        if (virtualThreads) {
+            log.warn("Virtual threads need Java 21+, running item processing on a {}-thread pool", concurrency);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(concurrency * 10);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("batch-processor-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.Spring_batch_kafka.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Locale;
+
+/**
+ * Adds the indexes that JobExecutionQueryRepository relies on and the stock Spring Batch
+ * schema lacks. The foreign-key columns are not indexed on every database (Postgres never
+ * indexes them), and STATUS has no index at all. Existing indexes are detected through
+ * JDBC metadata, so this is safe to run on every start.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "batch.monitoring.create-indexes", havingValue = "true", matchIfMissing = true)
+public class BatchMetadataIndexInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String prefix;
+
+    public BatchMetadataIndexInitializer(JdbcTemplate jdbcTemplate,
+                                         @Value("${spring.batch.jdbc.table-prefix:BATCH_}") String prefix) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        createIndex("JOB_EXECUTION", "JOB_EXEC_STATUS_IDX", "STATUS, JOB_EXECUTION_ID");
+        createIndex("JOB_EXECUTION", "JOB_EXEC_INST_IDX", "JOB_INSTANCE_ID, JOB_EXECUTION_ID");
+        createIndex("STEP_EXECUTION", "STEP_EXEC_JOB_IDX", "JOB_EXECUTION_ID");
+    }
+
+    private void createIndex(String table, String index, String columns) {
+        String tableName = prefix + table;
+        String indexName = prefix + index;
+        try {
+            if (indexExists(tableName, indexName)) {
+                return;
+            }
+            jdbcTemplate.execute("CREATE INDEX " + indexName + " ON " + tableName + " (" + columns + ")");
+            log.info("Created index {} on {} ({})", indexName, tableName, columns);
+        } catch (Exception e) {
+            log.warn("Could not create index {} on {}: {}", indexName, tableName, e.getMessage());
+        }
+    }
+
+    private boolean indexExists(String tableName, String indexName) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesLowerCaseIdentifiers() ? tableName.toLowerCase(Locale.ROOT) : tableName;
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+                while (indexes.next()) {
+                    if (indexName.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -1,21 +1,27 @@
 package com.example.Spring_batch_kafka.config;
 
 import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.listener.ChunkSizeController;
+import com.example.Spring_batch_kafka.listener.JobCompletionListener;
+import com.example.Spring_batch_kafka.listener.RunningExecutionRegistry;
+import com.example.Spring_batch_kafka.listener.StepMetricsListener;
+import com.example.Spring_batch_kafka.processor.UnchangedCustomerFilter;
+import com.example.Spring_batch_kafka.reader.CustomerReaderFactory;
 import lombok.AllArgsConstructor;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.LineMapper;
-import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
 import org.springframework.batch.item.kafka.KafkaItemWriter;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
 
@@ -24,31 +30,16 @@ import org.springframework.transaction.PlatformTransactionManager;
 public class BatchProducerConfig {
 
     private KafkaTemplate<String, Customer> kafkaTemplate;
+    private CustomerReaderFactory customerReaderFactory;
+    private StepMetricsListener stepMetricsListener;
+    private JobCompletionListener jobCompletionListener;
+    private RunningExecutionRegistry runningExecutionRegistry;
+    private UnchangedCustomerFilter unchangedCustomerFilter;
+    private ChunkSizeController chunkSizeController;
 
     @Bean
-    public FlatFileItemReader<Customer> csvReader() {
-        FlatFileItemReader<Customer> itemReader = new FlatFileItemReader<>();
-        itemReader.setResource(new FileSystemResource("src/main/resources/customers.csv"));
-        itemReader.setName("csvReader");
-        itemReader.setLinesToSkip(1);
-        itemReader.setLineMapper(lineMapper());
-        return itemReader;
-    }
-
-    private LineMapper<Customer> lineMapper() {
-        DefaultLineMapper<Customer> lineMapper = new DefaultLineMapper<>();
-
-        DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
-        lineTokenizer.setDelimiter(",");
-        lineTokenizer.setStrict(false);
-        lineTokenizer.setNames("id", "firstName", "lastName", "email", "gender", "contactNo", "country", "dob");
-
-        BeanWrapperFieldSetMapper<Customer> fieldSetMapper = new BeanWrapperFieldSetMapper<>();
-        fieldSetMapper.setTargetType(Customer.class);
-
-        lineMapper.setLineTokenizer(lineTokenizer);
-        lineMapper.setFieldSetMapper(fieldSetMapper);
-        return lineMapper;
+    public AbstractItemCountingItemStreamItemReader<Customer> csvReader() {
+        return customerReaderFactory.fileReader("csvReader");
     }
 
     @Bean
@@ -62,10 +53,21 @@ public class BatchProducerConfig {
 
     @Bean
     public Step csvToKafkaStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        ChunkSizeController.Policy chunkSize = chunkSizeController.policy(1000);
         return new StepBuilder("csv-to-kafka-step", jobRepository)
-                .<Customer, Customer>chunk(1000, transactionManager)
+                .<Customer, Customer>chunk(chunkSize, transactionManager)
                 .reader(csvReader())
-                .writer(kafkaItemWriter())
+                .processor(unchangedCustomerFilter)
+                .writer(unchangedCustomerFilter.recording(kafkaItemWriter()))
+                .listener((StepExecutionListener) stepMetricsListener)
+                .listener((ChunkListener) stepMetricsListener)
+                .listener((ItemReadListener<Object>) stepMetricsListener)
+                .listener((ItemWriteListener<Object>) stepMetricsListener)
+                .listener((StepExecutionListener) runningExecutionRegistry)
+                .listener((ChunkListener) runningExecutionRegistry)
+                .listener(unchangedCustomerFilter)
+                .listener((StepExecutionListener) chunkSize)
+                .listener((ChunkListener) chunkSize)
                 .build();
     }
 
@@ -73,6 +75,8 @@ public class BatchProducerConfig {
     public Job csvToKafkaJob(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
         return new JobBuilder("csvToKafkaJob", jobRepository)
                 .start(csvToKafkaStep(jobRepository, transactionManager))
+                .listener(jobCompletionListener)
+                .listener((JobExecutionListener) runningExecutionRegistry)
                 .build();
     }
 }
\ No newline at end of file
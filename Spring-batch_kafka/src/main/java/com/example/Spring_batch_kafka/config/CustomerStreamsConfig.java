@@ -0,0 +1,153 @@
+package com.example.Spring_batch_kafka.config;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.serde.CustomerBinaryDeserializer;
+import com.example.Spring_batch_kafka.serde.CustomerBinarySerializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.state.KeyValueBytesStoreSupplier;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowBytesStoreSupplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Live customer counts computed by Kafka Streams from customer-topic, for
+ * {@link com.example.Spring_batch_kafka.service.CustomerStreamStats}. Enabled with
+ * kafka.streams.enabled.
+ * <p>
+ * The latest record of every customer id is kept in {@value #LATEST_STORE}; per-country and
+ * per-gender counts are aggregated from that table, so a customer sent twice or moved to
+ * another country is counted once. {@value #RATE_STORE} counts records per country in
+ * tumbling windows of kafka.streams.rate.window-seconds. Stores are RocksDB, or in memory with
+ * kafka.streams.store-type=in-memory (rebuilt from the changelog topics on start).
+ * <p>
+ * Each instance holds the store partitions of its own stream tasks, so with several
+ * instances a query answers for the countries assigned to the instance it reaches.
+ */
+@Configuration
+@ConditionalOnProperty(name = "kafka.streams.enabled", havingValue = "true")
+public class CustomerStreamsConfig {
+
+    public static final String LATEST_STORE = "customer-latest";
+    public static final String COUNTRY_STORE = "customer-counts-by-country";
+    public static final String GENDER_STORE = "customer-counts-by-gender";
+    public static final String RATE_STORE = "customer-rate-by-country";
+    public static final String UNKNOWN = "UNKNOWN";
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${kafka.topics.customer}")
+    private String customerTopic;
+
+    @Value("${kafka.streams.application-id:customer-aggregates}")
+    private String applicationId;
+
+    @Value("${kafka.streams.state-dir:${java.io.tmpdir}/kafka-streams}")
+    private String stateDir;
+
+    @Value("${kafka.streams.threads:1}")
+    private int threads;
+
+    @Value("${kafka.streams.commit-interval-ms:1000}")
+    private long commitIntervalMs;
+
+    @Value("${kafka.streams.store-type:rocksdb}")
+    private String storeType;
+
+    @Value("${kafka.streams.rate.window-seconds:60}")
+    private long rateWindowSeconds;
+
+    @Value("${kafka.streams.rate.retention-minutes:60}")
+    private long rateRetentionMinutes;
+
+    @Bean
+    public StreamsBuilderFactoryBean customerStreamsBuilder() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(StreamsConfig.STATE_DIR_CONFIG, stateDir);
+        config.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, threads);
+        config.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, commitIntervalMs);
+        config.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        return new StreamsBuilderFactoryBean(new KafkaStreamsConfiguration(config));
+    }
+
+    @Bean
+    public KStream<String, Customer> customerAggregateStream(StreamsBuilder customerStreamsBuilder) {
+        return buildTopology(customerStreamsBuilder, customerTopic, "in-memory".equalsIgnoreCase(storeType.trim()),
+                Duration.ofSeconds(rateWindowSeconds), Duration.ofMinutes(rateRetentionMinutes));
+    }
+
+    /**
+     * Adds the aggregation to the builder. Records may be JSON or {@link CustomerBinarySerializer}
+     * binary; both are read, and the binary form is used for the repartition and changelog topics.
+     */
+    public static KStream<String, Customer> buildTopology(StreamsBuilder builder, String topic, boolean inMemory,
+                                                          Duration rateWindow, Duration rateRetention) {
+        Serde<Customer> customerSerde = Serdes.serdeFrom(new CustomerBinarySerializer(), new CustomerBinaryDeserializer());
+        KStream<String, Customer> customers = builder
+                .stream(topic, Consumed.with(Serdes.String(), customerSerde))
+                .filter((key, customer) -> customer != null);
+
+        KTable<String, Customer> latest = customers
+                .selectKey((key, customer) -> String.valueOf(customer.getId()))
+                .toTable(Materialized.<String, Customer>as(keyValueStore(LATEST_STORE, inMemory))
+                        .withKeySerde(Serdes.String()).withValueSerde(customerSerde));
+
+        countBy(latest, COUNTRY_STORE, Customer::getCountry, inMemory);
+        countBy(latest, GENDER_STORE, Customer::getGender, inMemory);
+
+        customers
+                .map((key, customer) -> KeyValue.pair(orUnknown(customer.getCountry()), ""))
+                .groupByKey(Grouped.with(Serdes.String(), Serdes.String()))
+                .windowedBy(TimeWindows.ofSizeAndGrace(rateWindow, rateWindow))
+                .count(Materialized.<String, Long>as(windowStore(RATE_STORE, inMemory, rateWindow, rateRetention))
+                        .withKeySerde(Serdes.String()).withValueSerde(Serdes.Long()));
+        return customers;
+    }
+
+    private static void countBy(KTable<String, Customer> latest, String store,
+                                Function<Customer, String> dimension, boolean inMemory) {
+        latest
+                .groupBy((id, customer) -> KeyValue.pair(orUnknown(dimension.apply(customer)), id),
+                        Grouped.with(Serdes.String(), Serdes.String()))
+                .count(Materialized.<String, Long>as(keyValueStore(store, inMemory))
+                        .withKeySerde(Serdes.String()).withValueSerde(Serdes.Long()));
+    }
+
+    private static String orUnknown(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value;
+    }
+
+    private static KeyValueBytesStoreSupplier keyValueStore(String name, boolean inMemory) {
+        return inMemory ? Stores.inMemoryKeyValueStore(name) : Stores.persistentKeyValueStore(name);
+    }
+
+    private static WindowBytesStoreSupplier windowStore(String name, boolean inMemory, Duration window,
+                                                        Duration retention) {
+        Duration kept = retention.compareTo(window.multipliedBy(2)) < 0 ? window.multipliedBy(2) : retention;
+        return inMemory
+                ? Stores.inMemoryWindowStore(name, kept, window, false)
+                : Stores.persistentWindowStore(name, kept, window, false);
+    }
+}
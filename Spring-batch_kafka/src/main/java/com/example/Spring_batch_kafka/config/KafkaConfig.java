@@ -2,9 +2,14 @@ package com.example.Spring_batch_kafka.config;
 
 
 
+import com.example.Spring_batch_kafka.consumer.AcknowledgmentBatcher;
 import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.serde.CustomerBinaryDeserializer;
+import com.example.Spring_batch_kafka.serde.CustomerBinarySerializer;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,9 +17,12 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,12 +35,19 @@ public class KafkaConfig {
     @Value("${kafka.topics.customer}")
     private String customerTopic;
 
+    @Value("${kafka.serde.format:json}")
+    private String serdeFormat;
+
+    @Value("${kafka.consumer.redelivery.backoff-ms:1000}")
+    private long redeliveryBackoffMs;
+
     @Bean
     public ProducerFactory<String, Customer> producerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                isBinaryFormat() ? CustomerBinarySerializer.class : JsonSerializer.class);
         config.put(ProducerConfig.ACKS_CONFIG, "all");
         config.put(ProducerConfig.RETRIES_CONFIG, 3);
         return new DefaultKafkaProducerFactory<>(config);
@@ -51,7 +66,8 @@ public class KafkaConfig {
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, "batch-consumer-group");
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                isBinaryFormat() ? CustomerBinaryDeserializer.class : JsonDeserializer.class);
         config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
         config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, Customer.class.getName());
@@ -59,12 +75,40 @@ public class KafkaConfig {
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Customer> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Customer> kafkaListenerContainerFactory(AcknowledgmentBatcher acknowledgmentBatcher) {
         ConcurrentKafkaListenerContainerFactory<String, Customer> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setConcurrency(3);
         factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        // idle consumers still get to redeliver a failed batch, see CustomerBatchPipeline
+        factory.getContainerProperties().setIdleEventInterval(Math.max(100, redeliveryBackoffMs));
+        factory.getContainerProperties().setConsumerRebalanceListener(flushAcksOnRevoke(acknowledgmentBatcher));
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Customer> kafkaRecordListenerContainerFactory(AcknowledgmentBatcher acknowledgmentBatcher) {
+        ConcurrentKafkaListenerContainerFactory<String, Customer> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(3);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(flushAcksOnRevoke(acknowledgmentBatcher));
         return factory;
     }
+
+    private boolean isBinaryFormat() {
+        return "binary".equalsIgnoreCase(serdeFormat.trim());
+    }
+
+    private ConsumerAwareRebalanceListener flushAcksOnRevoke(AcknowledgmentBatcher acknowledgmentBatcher) {
+        return new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                acknowledgmentBatcher.flush();
+            }
+        };
+    }
 }
\ No newline at end of file
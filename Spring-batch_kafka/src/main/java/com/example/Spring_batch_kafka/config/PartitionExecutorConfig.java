@@ -0,0 +1,80 @@
+package com.example.Spring_batch_kafka.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor that runs masterStep's partitions, selected by batch.partition.executor:
+ * <ul>
+ *   <li>fixed - batch.thread.pool.size threads</li>
+ *   <li>elastic - min(2 x cores, Hikari pool size - reserved connections) threads</li>
+ *   <li>virtual - one virtual thread per partition, limited to the connections a partition
+ *   can actually get (Java 21+ runtime; falls back to elastic otherwise)</li>
+ * </ul>
+ * Partitions beyond the concurrency limit wait in the queue, so the partitioner can create
+ * many more partitions than threads.
+ */
+@Configuration
+@Slf4j
+public class PartitionExecutorConfig {
+
+    enum ExecutorMode { FIXED, ELASTIC, VIRTUAL }
+
+    @Value("${batch.partition.executor:elastic}")
+    private String executorMode;
+
+    @Value("${batch.thread.pool.size:10}")
+    private int fixedPoolSize;
+
+    @Value("${batch.partition.grid.size:0}")
+    private int gridSize;
+
+    @Value("${batch.partition.reserved-connections:4}")
+    private int reservedConnections;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    @Bean
+    public TaskExecutor taskExecutor() {
+        ExecutorMode mode = ExecutorMode.valueOf(executorMode.trim().toUpperCase());
+        if (mode == ExecutorMode.VIRTUAL) {
+            if (Runtime.version().feature() >= 21) {
+                SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("batch-partition-");
+                executor.setVirtualThreads(true);
+                executor.setConcurrencyLimit(connectionLimit());
+                log.info("Partition executor: virtual threads, concurrency limit {}", connectionLimit());
+                return executor;
+            }
+            log.warn("Virtual threads need Java 21+, using the elastic partition executor");
+            mode = ExecutorMode.ELASTIC;
+        }
+
+        int threads = mode == ExecutorMode.FIXED ? fixedPoolSize : elasticPoolSize();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("batch-partition-");
+        executor.initialize();
+        log.info("Partition executor: {} pool with {} threads", mode.name().toLowerCase(), threads);
+        return executor;
+    }
+
+    int elasticPoolSize() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(cores * 2, connectionLimit()));
+    }
+
+    private int connectionLimit() {
+        return Math.max(1, connectionPoolSize - reservedConnections);
+    }
+}
@@ -1,108 +1,143 @@
 package com.example.Spring_batch_kafka.config;
 
 import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.listener.ChunkSizeController;
+import com.example.Spring_batch_kafka.listener.JobCompletionListener;
+import com.example.Spring_batch_kafka.listener.RunningExecutionRegistry;
+import com.example.Spring_batch_kafka.listener.StepMetricsListener;
 import com.example.Spring_batch_kafka.partitioner.CustomerPartitioner;
 import com.example.Spring_batch_kafka.processor.CustomerProcessor;
-import com.example.Spring_batch_kafka.repository.CustomerRepository;
+import com.example.Spring_batch_kafka.processor.UnchangedCustomerFilter;
+import com.example.Spring_batch_kafka.reader.CustomerReaderFactory;
+import com.example.Spring_batch_kafka.service.ConnectionBudget;
+import com.example.Spring_batch_kafka.writer.CustomerJdbcWriter;
+import com.example.Spring_batch_kafka.writer.WriteMode;
 import lombok.AllArgsConstructor;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.data.RepositoryItemWriter;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.LineMapper;
-import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.concurrent.Future;
+
 @Configuration
 @AllArgsConstructor
 public class PartitionedBatchConfig {
 
-    private CustomerRepository customerRepository;
+    private CustomerJdbcWriter customerJdbcWriter;
     private CustomerPartitioner customerPartitioner;
+    private CustomerReaderFactory customerReaderFactory;
+    private CustomerProcessor customerProcessor;
+    private AsyncProcessingConfig asyncProcessingConfig;
+    private PartitionExecutorConfig partitionExecutorConfig;
+    private StepMetricsListener stepMetricsListener;
+    private JobCompletionListener jobCompletionListener;
+    private RunningExecutionRegistry runningExecutionRegistry;
+    private UnchangedCustomerFilter unchangedCustomerFilter;
+    private ChunkSizeController chunkSizeController;
+    private ConnectionBudget connectionBudget;
+    private RemotePartitioningConfig remotePartitioningConfig;
+    private JobExplorer jobExplorer;
+    private BeanFactory beanFactory;
 
     @Bean
     @StepScope
-    public FlatFileItemReader<Customer> partitionReader(
-            @Value("#{stepExecutionContext['minValue']}") Integer minValue) {
-
-        FlatFileItemReader<Customer> reader = new FlatFileItemReader<>();
-        reader.setResource(new FileSystemResource("src/main/resources/customers.csv"));
-        reader.setName("partitionReader");
-        reader.setLinesToSkip(minValue != null ? minValue + 1 : 1);
-        reader.setLineMapper(lineMapper());
-        return reader;
-    }
-
-    private LineMapper<Customer> lineMapper() {
-        DefaultLineMapper<Customer> lineMapper = new DefaultLineMapper<>();
-        DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
-        lineTokenizer.setDelimiter(",");
-        lineTokenizer.setStrict(false);
-        lineTokenizer.setNames("id", "firstName", "lastName", "email", "gender", "contactNo", "country", "dob");
-
-        BeanWrapperFieldSetMapper<Customer> fieldSetMapper = new BeanWrapperFieldSetMapper<>();
-        fieldSetMapper.setTargetType(Customer.class);
+    public AbstractItemCountingItemStreamItemReader<Customer> partitionReader(
+            @Value("#{stepExecutionContext['inputFile']}") String inputFile,
+            @Value("#{stepExecutionContext['startOffset']}") Long startOffset,
+            @Value("#{stepExecutionContext['endOffset']}") Long endOffset) {
 
-        lineMapper.setLineTokenizer(lineTokenizer);
-        lineMapper.setFieldSetMapper(fieldSetMapper);
-        return lineMapper;
+        return customerReaderFactory.rangeReader("partitionReader", inputFile, startOffset, endOffset);
     }
 
     @Bean
-    public RepositoryItemWriter<Customer> repositoryWriter() {
-        RepositoryItemWriter<Customer> writer = new RepositoryItemWriter<>();
-        writer.setRepository(customerRepository);
-        writer.setMethodName("save");
-        return writer;
+    @StepScope
+    public ItemWriter<Customer> partitionWriter(@Value("#{jobParameters['writeMode']}") String writeMode) {
+        return unchangedCustomerFilter.recording(
+                customerJdbcWriter.withMode(WriteMode.from(writeMode, customerJdbcWriter.getDefaultMode())));
     }
 
     @Bean
     public Step workerStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
-        return new StepBuilder("workerStep", jobRepository)
-                .<Customer, Customer>chunk(50, transactionManager)
-                .reader(partitionReader(null))
-                .processor(new CustomerProcessor())
-                .writer(repositoryWriter())
+        StepBuilder stepBuilder = new StepBuilder("workerStep", jobRepository);
+        ChunkSizeController.Policy chunkSize = chunkSizeController.policy(50);
+        if (asyncProcessingConfig.isEnabled()) {
+            // Items of a chunk are processed concurrently; AsyncItemWriter unwraps the futures
+            // in read order, so ordering and reader restart state are unchanged.
+            return stepBuilder
+                    .<Customer, Future<Customer>>chunk(chunkSize, transactionManager)
+                    .reader(partitionReader(null, null, null))
+                    .processor(unchangedCustomerFilter.before(
+                            asyncProcessingConfig.asyncProcessor(stepMetricsListener.timed(customerProcessor))))
+                    .writer(asyncProcessingConfig.asyncWriter(partitionWriter(null)))
+                    .listener((StepExecutionListener) stepMetricsListener)
+                    .listener((ChunkListener) stepMetricsListener)
+                    .listener((ItemReadListener<Object>) stepMetricsListener)
+                    .listener((ItemWriteListener<Object>) stepMetricsListener)
+                    .listener((StepExecutionListener) runningExecutionRegistry)
+                    .listener((ChunkListener) runningExecutionRegistry)
+                    .listener(unchangedCustomerFilter)
+                    .listener((StepExecutionListener) chunkSize)
+                    .listener((ChunkListener) chunkSize)
+                    .build();
+        }
+        return stepBuilder
+                .<Customer, Customer>chunk(chunkSize, transactionManager)
+                .reader(partitionReader(null, null, null))
+                .processor(unchangedCustomerFilter.before(stepMetricsListener.timed(customerProcessor)))
+                .writer(partitionWriter(null))
+                .listener((StepExecutionListener) stepMetricsListener)
+                .listener((ChunkListener) stepMetricsListener)
+                .listener((ItemReadListener<Object>) stepMetricsListener)
+                .listener((ItemWriteListener<Object>) stepMetricsListener)
+                .listener((StepExecutionListener) runningExecutionRegistry)
+                .listener((ChunkListener) runningExecutionRegistry)
+                .listener(unchangedCustomerFilter)
+                .listener((StepExecutionListener) chunkSize)
+                .listener((ChunkListener) chunkSize)
                 .build();
     }
 
     @Bean
     public Step masterStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        if (remotePartitioningConfig.isRemote()) {
+            // Partitions are sent to worker nodes over Kafka; see RemotePartitioningConfig.
+            return remotePartitioningConfig.managerStepBuilder("masterStep", jobRepository, jobExplorer, beanFactory)
+                    .partitioner("workerStep", customerPartitioner)
+                    .gridSize(partitionExecutorConfig.getGridSize())
+                    .listener(stepMetricsListener)
+                    .build();
+        }
         return new StepBuilder("masterStep", jobRepository)
                 .partitioner("workerStep", customerPartitioner)
                 .step(workerStep(jobRepository, transactionManager))
-                .gridSize(4)
-                .taskExecutor(taskExecutor())
+                .gridSize(partitionExecutorConfig.getGridSize())
+                .taskExecutor(connectionBudget.admitting("partition", partitionExecutorConfig.taskExecutor()))
+                .listener(stepMetricsListener)
                 .build();
     }
 
-    @Bean
-    public TaskExecutor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(4);
-        executor.setMaxPoolSize(4);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("batch-partition-");
-        executor.initialize();
-        return executor;
-    }
-
     @Bean
     public Job partitionedJob(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
         return new JobBuilder("partitionedImportCustomers", jobRepository)
                 .start(masterStep(jobRepository, transactionManager))
+                .listener(jobCompletionListener)
+                .listener((JobExecutionListener) runningExecutionRegistry)
                 .build();
     }
 }
\ No newline at end of file
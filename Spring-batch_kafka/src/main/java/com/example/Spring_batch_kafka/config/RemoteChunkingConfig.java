@@ -0,0 +1,321 @@
+package com.example.Spring_batch_kafka.config;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.listener.JobCompletionListener;
+import com.example.Spring_batch_kafka.listener.RunningExecutionRegistry;
+import com.example.Spring_batch_kafka.listener.StepMetricsListener;
+import com.example.Spring_batch_kafka.processor.CustomerProcessor;
+import com.example.Spring_batch_kafka.reader.CustomerReaderFactory;
+import com.example.Spring_batch_kafka.serde.ChunkMessageCodec;
+import com.example.Spring_batch_kafka.service.ConnectionBudget;
+import com.example.Spring_batch_kafka.writer.CustomerJdbcWriter;
+import com.example.Spring_batch_kafka.writer.WriteMode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.item.SimpleChunkProcessor;
+import org.springframework.batch.integration.chunk.ChunkProcessorChunkHandler;
+import org.springframework.batch.integration.chunk.ChunkRequest;
+import org.springframework.batch.integration.chunk.ChunkResponse;
+import org.springframework.batch.integration.chunk.RemoteChunkingManagerStepBuilder;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.kafka.dsl.Kafka;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Remote chunking of the customer import over Kafka, for runs where CustomerProcessor rather
+ * than reading is the bottleneck.
+ * <p>
+ * The manager (batch.remote.chunking.enabled=true) runs remoteChunkedImportCustomers. It reads
+ * the whole CSV itself and sends every chunk to the request topic. Workers
+ * (batch.remote.chunking.worker.enabled=true) process and write each chunk in one transaction
+ * and reply with the step contribution. At most batch.remote.chunking.max-in-flight chunks are
+ * unanswered at any time; beyond that the manager stops reading until replies come back.
+ * <p>
+ * Requests and replies use {@link ChunkMessageCodec}. The manager consumes all replies in one
+ * consumer group, so only one remote chunking execution should run at a time across managers.
+ * Replies for a step execution that is no longer running (left over from a failed run) are
+ * dropped.
+ */
+@Configuration
+@Slf4j
+public class RemoteChunkingConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${batch.remote.chunking.request-topic:customer-chunk-requests}")
+    private String requestTopic;
+
+    @Value("${batch.remote.chunking.reply-topic:customer-chunk-replies}")
+    private String replyTopic;
+
+    @Value("${batch.remote.chunking.request-partitions:8}")
+    private int requestPartitions;
+
+    @Value("${batch.remote.chunking.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${batch.remote.chunking.max-in-flight:16}")
+    private long maxInFlight;
+
+    @Value("${batch.remote.chunking.reply-timeout-ms:600000}")
+    private long replyTimeoutMs;
+
+    @Bean
+    public KafkaTemplate<String, byte[]> chunkKafkaTemplate() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+    }
+
+    private ConsumerFactory<String, byte[]> chunkConsumerFactory(Map<String, Object> overrides) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.putAll(overrides);
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+
+    // ===================================
+    // Manager
+    // ===================================
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.chunking.enabled", havingValue = "true")
+    public NewTopic chunkRequestTopic() {
+        return TopicBuilder.name(requestTopic).partitions(requestPartitions).replicas(1).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.chunking.enabled", havingValue = "true")
+    public NewTopic chunkReplyTopic() {
+        return TopicBuilder.name(replyTopic).partitions(1).replicas(1).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.chunking.enabled", havingValue = "true")
+    public DirectChannel chunkRequests() {
+        return new DirectChannel();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.chunking.enabled", havingValue = "true")
+    public QueueChannel chunkReplies() {
+        return new QueueChannel();
+    }
+
+    /**
+     * Chunks are keyed by sequence number, so consecutive chunks land on different request
+     * topic partitions and therefore on different workers.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.chunking.enabled", havingValue = "true")
+    @SuppressWarnings("unchecked")
+    public IntegrationFlow chunkRequestFlow() {
+        return IntegrationFlow.from(chunkRequests())
+                .enrichHeaders(headers -> headers.headerFunction(KafkaHeaders.KEY,
+                        message -> String.valueOf(((ChunkRequest<?>) message.getPayload()).getSequence())))
+                .transform(ChunkRequest.class, request -> ChunkMessageCodec.encodeRequest(request))
+                .handle(Kafka.outboundChannelAdapter(chunkKafkaTemplate()).topic(requestTopic))
+                .get();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.chunking.enabled", havingValue = "true")
+    public IntegrationFlow chunkReplyFlow(JobExplorer jobExplorer,
+                                          @Value("${spring.application.name}") String applicationName) {
+        return IntegrationFlow.from(Kafka.messageDrivenChannelAdapter(chunkConsumerFactory(Map.of()), replyTopic)
+                        .configureListenerContainer(container -> container.groupId(applicationName + "-chunk-manager")))
+                .transform(byte[].class, ChunkMessageCodec::decodeResponse)
+                .filter(ChunkResponse.class, response -> isRunning(jobExplorer, response),
+                        filter -> filter.discardFlow(discarded -> discarded.handle((payload, headers) -> {
+                            log.warn("Dropping stale chunk reply {}", payload);
+                            return null;
+                        })))
+                .transform(ChunkResponse.class, RemoteChunkingConfig::countedOnce)
+                .channel(chunkReplies())
+                .get();
+    }
+
+    @Bean
+    @StepScope
+    @ConditionalOnProperty(name = "batch.remote.chunking.enabled", havingValue = "true")
+    public AbstractItemCountingItemStreamItemReader<Customer> remoteChunkReader(CustomerReaderFactory customerReaderFactory) {
+        return customerReaderFactory.fileReader("remoteChunkReader");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.chunking.enabled", havingValue = "true")
+    public Step remoteChunkingStep(JobRepository jobRepository, PlatformTransactionManager transactionManager,
+                                   AbstractItemCountingItemStreamItemReader<Customer> remoteChunkReader,
+                                   StepMetricsListener stepMetricsListener,
+                                   RunningExecutionRegistry runningExecutionRegistry) {
+        // Replies are polled with a short timeout so the step can give up after
+        // reply-timeout-ms instead of blocking forever on a dead worker pool.
+        MessagingTemplate messagingTemplate = new MessagingTemplate();
+        messagingTemplate.setDefaultChannel(chunkRequests());
+        messagingTemplate.setReceiveTimeout(1000);
+        return new RemoteChunkingManagerStepBuilder<Customer, Customer>("remoteChunkingStep", jobRepository)
+                .chunk(chunkSize)
+                .reader(remoteChunkReader)
+                .messagingTemplate(messagingTemplate)
+                .inputChannel(chunkReplies())
+                .throttleLimit(maxInFlight)
+                .maxWaitTimeouts((int) Math.max(1, replyTimeoutMs / 1000))
+                .transactionManager(transactionManager)
+                .listener((StepExecutionListener) stepMetricsListener)
+                .listener((ChunkListener) stepMetricsListener)
+                .listener((ItemReadListener<Object>) stepMetricsListener)
+                .listener((ItemWriteListener<Object>) stepMetricsListener)
+                .listener((StepExecutionListener) runningExecutionRegistry)
+                .listener((ChunkListener) runningExecutionRegistry)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.chunking.enabled", havingValue = "true")
+    public Job remoteChunkingJob(JobRepository jobRepository, Step remoteChunkingStep,
+                                 JobCompletionListener jobCompletionListener,
+                                 RunningExecutionRegistry runningExecutionRegistry) {
+        return new JobBuilder("remoteChunkedImportCustomers", jobRepository)
+                .start(remoteChunkingStep)
+                .listener(jobCompletionListener)
+                .listener((JobExecutionListener) runningExecutionRegistry)
+                .build();
+    }
+
+    /**
+     * The manager step counts every item it sends as written, and the worker's contribution
+     * counts its writes again. Keep only the worker's filtered and skipped items, taken off the
+     * manager's count.
+     */
+    private static ChunkResponse countedOnce(ChunkResponse response) {
+        StepContribution contribution = response.getStepContribution();
+        contribution.incrementWriteCount(-(contribution.getWriteCount() + contribution.getFilterCount()
+                + contribution.getWriteSkipCount() + contribution.getProcessSkipCount()));
+        return response;
+    }
+
+    private static boolean isRunning(JobExplorer jobExplorer, ChunkResponse response) {
+        StepExecution sent = response.getStepContribution().getStepExecution();
+        StepExecution current = jobExplorer.getStepExecution(sent.getJobExecutionId(), sent.getId());
+        return current != null && current.getStatus().isRunning();
+    }
+
+    // ===================================
+    // Worker
+    // ===================================
+
+    /**
+     * Processes and writes a chunk the same way workerStep does, including concurrent
+     * processing when batch.processor.async.enabled is set. A chunk that fails is rolled back
+     * and reported to the manager, which fails the step.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.chunking.worker.enabled", havingValue = "true")
+    public ChunkProcessorChunkHandler<Customer> chunkProcessorChunkHandler(
+            CustomerProcessor customerProcessor, CustomerJdbcWriter customerJdbcWriter,
+            AsyncProcessingConfig asyncProcessingConfig, StepMetricsListener stepMetricsListener,
+            @Value("${batch.remote.chunking.worker.write-mode:upsert}") String writeMode) {
+        ItemWriter<Customer> writer = customerJdbcWriter.withMode(WriteMode.from(writeMode, customerJdbcWriter.getDefaultMode()));
+        ChunkProcessorChunkHandler<Customer> handler = new ChunkProcessorChunkHandler<>();
+        if (asyncProcessingConfig.isEnabled()) {
+            handler.setChunkProcessor(new SimpleChunkProcessor<Customer, Future<Customer>>(
+                    asyncProcessingConfig.asyncProcessor(stepMetricsListener.timed(customerProcessor)),
+                    asyncProcessingConfig.asyncWriter(writer)));
+        } else {
+            handler.setChunkProcessor(new SimpleChunkProcessor<>(stepMetricsListener.timed(customerProcessor), writer));
+        }
+        return handler;
+    }
+
+    /**
+     * One chunk per consumer thread at a time; the request offset is committed after the reply
+     * is sent, so a worker that dies mid-chunk leaves it to another worker. That chunk may then
+     * be written twice, which is why workers write in upsert mode by default.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.chunking.worker.enabled", havingValue = "true")
+    public IntegrationFlow chunkWorkerFlow(ChunkProcessorChunkHandler<Customer> chunkProcessorChunkHandler,
+                                           PlatformTransactionManager transactionManager,
+                                           ConnectionBudget connectionBudget,
+                                           @Value("${batch.remote.chunking.worker.concurrency:4}") int concurrency,
+                                           @Value("${batch.remote.chunking.worker.max-poll-records:10}") int maxPollRecords) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ConsumerFactory<String, byte[]> consumerFactory = chunkConsumerFactory(Map.of(
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords));
+        return IntegrationFlow.from(Kafka.messageDrivenChannelAdapter(consumerFactory, requestTopic)
+                        .configureListenerContainer(container -> container
+                                .groupId("batch-chunk-workers")
+                                .concurrency(concurrency)))
+                .transform(byte[].class, ChunkMessageCodec::decodeRequest)
+                .handle(ChunkRequest.class, (request, headers) -> connectionBudget.call("remote-chunk",
+                        () -> transactionTemplate.execute(status -> {
+                            ChunkResponse response = handle(chunkProcessorChunkHandler, request);
+                            if (!response.isSuccessful()) {
+                                status.setRollbackOnly();
+                            }
+                            return response;
+                        })))
+                .transform(ChunkResponse.class, ChunkMessageCodec::encodeResponse)
+                .handle(Kafka.outboundChannelAdapter(chunkKafkaTemplate()).topic(replyTopic).sync(true))
+                .get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChunkResponse handle(ChunkProcessorChunkHandler<Customer> handler, ChunkRequest<?> request) {
+        try {
+            return handler.handleChunk((ChunkRequest<Customer>) request);
+        } catch (Exception e) {
+            log.error("Chunk {} could not be handled", request.getSequence(), e);
+            return new ChunkResponse(false, request.getSequence(), request.getJobId(), request.getStepContribution(),
+                    e.getClass().getName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.Spring_batch_kafka.config;
+
+import com.example.Spring_batch_kafka.dto.PartitionMessage;
+import com.example.Spring_batch_kafka.service.ConnectionBudget;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.integration.partition.BeanFactoryStepLocator;
+import org.springframework.batch.integration.partition.RemotePartitioningManagerStepBuilder;
+import org.springframework.batch.integration.partition.StepExecutionRequest;
+import org.springframework.batch.integration.partition.StepExecutionRequestHandler;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.kafka.dsl.Kafka;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remote partitioning of workerStep over Kafka.
+ * <p>
+ * With batch.partition.mode=remote, masterStep still splits the file with CustomerPartitioner
+ * and saves one worker StepExecution per byte range. It does not run them on local threads.
+ * It sends one {@link PartitionMessage} per partition to the request topic and waits until
+ * all replies for this execution are back on the reply topic. Nodes with
+ * batch.remote.worker.enabled=true consume the request topic in one consumer group, run the
+ * local workerStep bean for each request and reply when it ends.
+ * <p>
+ * Only ids are sent. Partition bounds, reader position, counts and status go through the
+ * shared JobRepository, so a manager and its workers need the same database. Workers also need
+ * the input file under the same path. A partition that fails on a worker can be restarted
+ * like a local one.
+ * <p>
+ * Requests are spread over the request topic's partitions by partition number. One worker
+ * consumer thread runs one partition at a time, so the request topic needs at least as many
+ * partitions as there are worker threads across all nodes.
+ */
+@Configuration
+@Slf4j
+public class RemotePartitioningConfig {
+
+    @Value("${batch.partition.mode:local}")
+    private String partitionMode;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${batch.remote.partitioning.request-topic:customer-partition-requests}")
+    private String requestTopic;
+
+    @Value("${batch.remote.partitioning.reply-topic:customer-partition-replies}")
+    private String replyTopic;
+
+    @Value("${batch.remote.partitioning.request-partitions:8}")
+    private int requestPartitions;
+
+    @Value("${batch.remote.partitioning.timeout-ms:3600000}")
+    private long timeoutMs;
+
+    public boolean isRemote() {
+        return "remote".equalsIgnoreCase(partitionMode.trim());
+    }
+
+    @Bean
+    public DirectChannel partitionRequests() {
+        return new DirectChannel();
+    }
+
+    @Bean
+    public DirectChannel partitionReplies() {
+        return new DirectChannel();
+    }
+
+    /**
+     * A manager step builder wired to the Kafka channels. The caller adds the partitioner,
+     * grid size and listeners.
+     */
+    public RemotePartitioningManagerStepBuilder managerStepBuilder(String name, JobRepository jobRepository,
+                                                                   JobExplorer jobExplorer, BeanFactory beanFactory) {
+        MessagingTemplate messagingTemplate = new MessagingTemplate();
+        messagingTemplate.setDefaultChannel(partitionRequests());
+        messagingTemplate.setReceiveTimeout(timeoutMs);
+        return new RemotePartitioningManagerStepBuilder(name, jobRepository)
+                .inputChannel(partitionReplies())
+                .messagingTemplate(messagingTemplate)
+                .jobExplorer(jobExplorer)
+                .beanFactory(beanFactory);
+    }
+
+    @Bean
+    public KafkaTemplate<String, PartitionMessage> partitionKafkaTemplate() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+    }
+
+    private ConsumerFactory<String, PartitionMessage> partitionConsumerFactory(Map<String, Object> overrides) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, PartitionMessage.class.getName());
+        config.putAll(overrides);
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.partition.mode", havingValue = "remote")
+    public NewTopic partitionRequestTopic() {
+        return TopicBuilder.name(requestTopic).partitions(requestPartitions).replicas(1).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.partition.mode", havingValue = "remote")
+    public NewTopic partitionReplyTopic() {
+        return TopicBuilder.name(replyTopic).partitions(1).replicas(1).build();
+    }
+
+    /**
+     * Manager side, outbound: one request per partition. The partition number picks the
+     * request topic partition, so consecutive partitions go to different worker threads.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "batch.partition.mode", havingValue = "remote")
+    public IntegrationFlow partitionRequestFlow() {
+        return IntegrationFlow.from(partitionRequests())
+                .headerFilter(MessageHeaders.REPLY_CHANNEL, MessageHeaders.ERROR_CHANNEL)
+                .transform(StepExecutionRequest.class, request -> new PartitionMessage(
+                        request.getJobExecutionId(), request.getStepExecutionId(), request.getStepName()))
+                .handle(Kafka.outboundChannelAdapter(partitionKafkaTemplate())
+                        .topic(requestTopic)
+                        .messageKey(message -> String.valueOf(((PartitionMessage) message.getPayload()).getStepExecutionId()))
+                        .partitionId(this::requestPartition))
+                .get();
+    }
+
+    /**
+     * Manager side, inbound: each reply is turned back into the worker's StepExecution as saved
+     * in the JobRepository and handed to the aggregator created by the manager step builder.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "batch.partition.mode", havingValue = "remote")
+    public IntegrationFlow partitionReplyFlow(JobExplorer jobExplorer,
+                                              @Value("${spring.application.name}") String applicationName) {
+        ConsumerFactory<String, PartitionMessage> consumerFactory = partitionConsumerFactory(Map.of());
+        return IntegrationFlow.from(Kafka.messageDrivenChannelAdapter(consumerFactory, replyTopic)
+                        .configureListenerContainer(container -> container.groupId(applicationName + "-partition-manager")))
+                .transform(PartitionMessage.class, reply ->
+                        jobExplorer.getStepExecution(reply.getJobExecutionId(), reply.getStepExecutionId()))
+                .channel(partitionReplies())
+                .get();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.worker.enabled", havingValue = "true")
+    public StepExecutionRequestHandler stepExecutionRequestHandler(JobExplorer jobExplorer, BeanFactory beanFactory) {
+        BeanFactoryStepLocator stepLocator = new BeanFactoryStepLocator();
+        stepLocator.setBeanFactory(beanFactory);
+        StepExecutionRequestHandler handler = new StepExecutionRequestHandler();
+        handler.setJobExplorer(jobExplorer);
+        handler.setStepLocator(stepLocator);
+        return handler;
+    }
+
+    /**
+     * Worker side: runs the requested partition with the local step bean of the same name and
+     * replies with its ids. A partition can run for a long time, so each consumer takes one
+     * request per poll and may stay away from poll for batch.remote.worker.max-poll-interval-ms.
+     * The request offset is committed after the reply is sent.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "batch.remote.worker.enabled", havingValue = "true")
+    public IntegrationFlow partitionWorkerFlow(StepExecutionRequestHandler stepExecutionRequestHandler,
+                                               ConnectionBudget connectionBudget,
+                                               @Value("${batch.remote.worker.concurrency:4}") int concurrency,
+                                               @Value("${batch.remote.worker.max-poll-interval-ms:3600000}") int maxPollInterval) {
+        ConsumerFactory<String, PartitionMessage> consumerFactory = partitionConsumerFactory(Map.of(
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1,
+                ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, maxPollInterval));
+        return IntegrationFlow.from(Kafka.messageDrivenChannelAdapter(consumerFactory, requestTopic)
+                        .configureListenerContainer(container -> container
+                                .groupId("batch-partition-workers")
+                                .concurrency(concurrency)))
+                .transform(PartitionMessage.class, request -> new StepExecutionRequest(
+                        request.getStepName(), request.getJobExecutionId(), request.getStepExecutionId()))
+                .handle(StepExecutionRequest.class, (request, headers) ->
+                        connectionBudget.call("partition", () -> stepExecutionRequestHandler.handle(request)))
+                .transform(StepExecution.class, stepExecution -> {
+                    log.info("Partition {} finished with status {}", stepExecution.getStepName(), stepExecution.getStatus());
+                    return new PartitionMessage(stepExecution.getJobExecutionId(), stepExecution.getId(),
+                            stepExecution.getStepName());
+                })
+                .handle(Kafka.outboundChannelAdapter(partitionKafkaTemplate()).topic(replyTopic).sync(true))
+                .get();
+    }
+
+    private Integer requestPartition(Message<?> message) {
+        Integer sequence = new IntegrationMessageHeaderAccessor(message).getSequenceNumber();
+        return sequence == null ? null : Math.floorMod(sequence - 1, requestPartitions);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.Spring_batch_kafka.consumer;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups offset acknowledgments for the customer listeners. Callers hand in an
+ * {@link Acknowledgment} only after the records it covers are committed to the database.
+ * The group is released once kafka.consumer.ack.max-records records are pending, or when the
+ * oldest pending ack is kafka.consumer.ack.max-interval-ms old. A crash therefore replays at
+ * most one group, without committing offsets for every poll.
+ */
+@Component
+@Slf4j
+public class AcknowledgmentBatcher {
+
+    private final int maxRecords;
+    private final long maxIntervalMs;
+    private final ScheduledExecutorService scheduler;
+    private final List<Acknowledgment> pending = new ArrayList<>();
+    private int pendingRecords;
+    private long oldestPendingAt;
+
+    public AcknowledgmentBatcher(@Value("${kafka.consumer.ack.max-records:500}") int maxRecords,
+                                 @Value("${kafka.consumer.ack.max-interval-ms:5000}") long maxIntervalMs) {
+        this.maxRecords = maxRecords;
+        this.maxIntervalMs = maxIntervalMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("kafka-ack-"));
+        long period = Math.max(100, maxIntervalMs / 4);
+        scheduler.scheduleAtFixedRate(this::flushIfDue, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Acks must arrive in poll order for each consumer. The pipeline and the record
+     * listener both guarantee that.
+     */
+    public synchronized void acknowledge(Acknowledgment acknowledgment, int records) {
+        if (pending.isEmpty()) {
+            oldestPendingAt = System.currentTimeMillis();
+        }
+        pending.add(acknowledgment);
+        pendingRecords += records;
+        if (pendingRecords >= maxRecords) {
+            flush();
+        }
+    }
+
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        log.debug("Acknowledging {} records in {} groups", pendingRecords, pending.size());
+        for (Acknowledgment acknowledgment : pending) {
+            acknowledgment.acknowledge();
+        }
+        pending.clear();
+        pendingRecords = 0;
+    }
+
+    synchronized int getPendingRecords() {
+        return pendingRecords;
+    }
+
+    private synchronized void flushIfDue() {
+        try {
+            if (!pending.isEmpty() && System.currentTimeMillis() - oldestPendingAt >= maxIntervalMs) {
+                flush();
+            }
+        } catch (Exception e) {
+            log.error("Failed to flush pending acknowledgments", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        flush();
+    }
+}
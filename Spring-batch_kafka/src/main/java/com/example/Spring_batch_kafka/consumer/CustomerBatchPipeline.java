@@ -0,0 +1,475 @@
+package com.example.Spring_batch_kafka.consumer;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import com.example.Spring_batch_kafka.processor.CustomerProcessor;
+import com.example.Spring_batch_kafka.service.ConnectionBudget;
+import com.example.Spring_batch_kafka.writer.CustomerJdbcWriter;
+import com.example.Spring_batch_kafka.writer.WriteMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.batch.item.Chunk;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Worker pool for the customer batch listener. Records are processed on a fixed pool with a
+ * bounded queue, so in-flight work is capped at pool-size + queue-depth records. When less
+ * than one poll's worth of queue space is left, the listener container is paused. It keeps
+ * polling, so the group stays alive, but no records are fetched. It is resumed once the queue
+ * drains below half. Each batch is written in one transaction, within the {@link ConnectionBudget}.
+ * After the commit, its ack goes to
+ * {@link AcknowledgmentBatcher}, in poll order per consumer.
+ * <p>
+ * A batch whose write fails is not acknowledged, and neither is any later batch of the same
+ * consumer, so no commit moves past it. Its partitions are paused, and once the consumer's
+ * in-flight batches have settled and kafka.consumer.redelivery.backoff-ms has passed (doubling
+ * per consecutive failure, up to max-backoff-ms), the consumer seeks back to the first
+ * unacknowledged offset of each and the records are delivered again. The seek is done on the
+ * consumer thread, from the next {@link #submit} or from {@link #onIdle}.
+ * <p>
+ * When a write fails, the failing record is located from the JDBC batch update counts, or by
+ * bisecting when the driver does not report them. The records before it are committed, the
+ * failing record alone is retried batch.kafka.dlq.max-retries times with doubling backoff, and
+ * the rest of the batch is written after it. Records that still fail, or that the processor
+ * rejects, go to the {@link DeadLetterPublisher}. Connection and other transient failures are
+ * not the records' fault, so they are never dead-lettered: they fail the batch, which is
+ * redelivered as above. So is a batch whose dead letters could not be published. Redelivered
+ * records that were already committed are written again, and poison records dead-lettered
+ * again, so the consumer's write mode should be upsert.
+ */
+@Component
+@Slf4j
+public class CustomerBatchPipeline {
+
+    static final String LISTENER_ID = "customerBatchListener";
+
+    private final CustomerProcessor customerProcessor;
+    private final CustomerJdbcWriter customerJdbcWriter;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final AcknowledgmentBatcher acknowledgmentBatcher;
+    private final ConnectionBudget connectionBudget;
+    private final DeadLetterPublisher deadLetterPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteMode writeMode;
+    private final int maxRetries;
+    private final long backoffMs;
+    private final int highWaterMark;
+    private final int lowWaterMark;
+    private final ThreadPoolExecutor executor;
+    private final AtomicBoolean paused = new AtomicBoolean();
+    private final Counter pauseCounter;
+    private final Counter redeliveryCounter;
+    private final long redeliveryBackoffMs;
+    private final long maxRedeliveryBackoffMs;
+    private final ThreadLocal<ConsumerState> consumerState = ThreadLocal.withInitial(ConsumerState::new);
+
+    public CustomerBatchPipeline(CustomerProcessor customerProcessor,
+                                 CustomerJdbcWriter customerJdbcWriter,
+                                 KafkaListenerEndpointRegistry listenerRegistry,
+                                 AcknowledgmentBatcher acknowledgmentBatcher,
+                                 ConnectionBudget connectionBudget,
+                                 DeadLetterPublisher deadLetterPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${kafka.consumer.pipeline.pool-size:16}") int poolSize,
+                                 @Value("${kafka.consumer.pipeline.queue-depth:500}") int queueDepth,
+                                 @Value("${spring.kafka.consumer.max-poll-records:100}") int maxPollRecords,
+                                 @Value("${kafka.consumer.write-mode:upsert}") String writeMode,
+                                 @Value("${batch.kafka.dlq.max-retries:3}") int maxRetries,
+                                 @Value("${batch.kafka.dlq.backoff-ms:200}") long backoffMs,
+                                 @Value("${kafka.consumer.redelivery.backoff-ms:1000}") long redeliveryBackoffMs,
+                                 @Value("${kafka.consumer.redelivery.max-backoff-ms:30000}") long maxRedeliveryBackoffMs) {
+        this.customerProcessor = customerProcessor;
+        this.customerJdbcWriter = customerJdbcWriter;
+        this.listenerRegistry = listenerRegistry;
+        this.acknowledgmentBatcher = acknowledgmentBatcher;
+        this.connectionBudget = connectionBudget;
+        this.deadLetterPublisher = deadLetterPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writeMode = WriteMode.from(writeMode, WriteMode.UPSERT);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.backoffMs = backoffMs;
+        this.redeliveryBackoffMs = redeliveryBackoffMs;
+        this.maxRedeliveryBackoffMs = Math.max(redeliveryBackoffMs, maxRedeliveryBackoffMs);
+        this.highWaterMark = Math.max(0, queueDepth - maxPollRecords);
+        this.lowWaterMark = queueDepth / 2;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth), new CustomizableThreadFactory("kafka-pipeline-"),
+                CustomerBatchPipeline::waitForQueueSpace) {
+            @Override
+            protected void afterExecute(Runnable task, Throwable failure) {
+                resumeIfDrained();
+            }
+        };
+
+        Gauge.builder("kafka.consumer.pipeline.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Pipeline threads currently processing records").register(meterRegistry);
+        Gauge.builder("kafka.consumer.pipeline.queued", executor, e -> e.getQueue().size())
+                .description("Records waiting for a pipeline thread").register(meterRegistry);
+        Gauge.builder("kafka.consumer.pipeline.remaining-capacity", executor, e -> e.getQueue().remainingCapacity())
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.pipeline.paused", paused, p -> p.get() ? 1 : 0)
+                .description("1 while the batch listener is paused for backpressure").register(meterRegistry);
+        this.pauseCounter = Counter.builder("kafka.consumer.pipeline.pauses")
+                .description("Times the batch listener was paused because the pipeline was full")
+                .register(meterRegistry);
+        this.redeliveryCounter = Counter.builder("kafka.consumer.pipeline.redeliveries")
+                .description("Times a consumer was rewound to redeliver a failed batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hands a polled batch to the pool and returns without waiting for it, so the consumer
+     * thread gets back to poll() well within max.poll.interval.ms. Must be called on the
+     * listener's consumer thread. firstOffsets holds the lowest offset of each partition in
+     * the batch, where the consumer seeks back to if the batch fails; afterWrite runs once the
+     * batch's write has committed.
+     */
+    public void submit(List<Customer> customers, Map<TopicPartition, Long> firstOffsets,
+                       Acknowledgment acknowledgment, Runnable afterWrite, Consumer<?, ?> consumer) {
+        ConsumerState state = consumerState.get();
+        if (state.failedAt != 0) {
+            // polled before the rewind, will be delivered again
+            rewind(state, firstOffsets);
+            redeliverIfDue(state, consumer.assignment(), consumer::seek);
+            return;
+        }
+
+        List<CompletableFuture<Customer>> processing = customers.stream()
+                .map(customer -> CompletableFuture.supplyAsync(() -> process(customer), executor))
+                .toList();
+
+        CompletableFuture<Void> written = CompletableFuture
+                .allOf(processing.toArray(CompletableFuture[]::new))
+                .thenRun(() -> write(processing.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList(),
+                        afterWrite));
+
+        state.lastAck = state.lastAck.thenCombine(written.handle((result, failure) -> Optional.ofNullable(failure)),
+                (healthy, failure) -> settle(state, healthy, failure.orElse(null), firstOffsets, acknowledgment,
+                        customers.size()));
+
+        pauseIfSaturated();
+    }
+
+    /**
+     * Called on the consumer thread while no records arrive, so a failed batch is redelivered
+     * even when its partitions have nothing new to poll.
+     */
+    public void onIdle(Map<TopicPartition, Long> assignments, ConsumerSeekAware.ConsumerSeekCallback callback) {
+        ConsumerState state = consumerState.get();
+        if (state.failedAt != 0) {
+            redeliverIfDue(state, assignments.keySet(),
+                    (partition, offset) -> callback.seek(partition.topic(), partition.partition(), offset));
+        }
+    }
+
+    /**
+     * Runs in poll order for each consumer. Acknowledges the batch if it and every batch before
+     * it were written; otherwise records where its partitions have to be rewound to.
+     */
+    private boolean settle(ConsumerState state, boolean healthy, Throwable failure,
+                           Map<TopicPartition, Long> firstOffsets, Acknowledgment acknowledgment, int records) {
+        if (healthy && failure == null) {
+            try {
+                acknowledgmentBatcher.acknowledge(acknowledgment, records);
+                state.failures = 0;
+                return true;
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        if (healthy) {
+            state.failures++;
+            state.failedAt = System.currentTimeMillis();
+            log.error("Customer batch of {} records failed, redelivering from {} in {} ms", records, firstOffsets,
+                    redeliveryBackoff(state.failures), failure);
+        }
+        rewind(state, firstOffsets);
+        return false;
+    }
+
+    private void rewind(ConsumerState state, Map<TopicPartition, Long> firstOffsets) {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        firstOffsets.forEach((partition, offset) -> {
+            state.rewind.merge(partition, offset, Math::min);
+            if (container != null) {
+                container.pausePartition(partition);
+            }
+        });
+    }
+
+    /**
+     * Seeks the consumer back once every batch it submitted before the failure has settled.
+     */
+    private void redeliverIfDue(ConsumerState state, Set<TopicPartition> assigned,
+                                ObjLongConsumer<TopicPartition> seek) {
+        if (!state.lastAck.isDone()
+                || System.currentTimeMillis() - state.failedAt < redeliveryBackoff(state.failures)) {
+            return;
+        }
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        state.rewind.forEach((partition, offset) -> {
+            // a partition revoked in the meantime restarts from its committed offset on the new owner
+            if (assigned.contains(partition)) {
+                seek.accept(partition, offset);
+            }
+            if (container != null) {
+                container.resumePartition(partition);
+            }
+        });
+        log.info("Redelivering customer records from {}", state.rewind);
+        redeliveryCounter.increment();
+        state.rewind.clear();
+        state.lastAck = CompletableFuture.completedFuture(true);
+        state.failedAt = 0;
+    }
+
+    private long redeliveryBackoff(int failures) {
+        return Math.min(maxRedeliveryBackoffMs, redeliveryBackoffMs << Math.min(Math.max(failures - 1, 0), 16));
+    }
+
+    private Customer process(Customer customer) {
+        try {
+            return customerProcessor.process(customer);
+        } catch (Exception e) {
+            log.error("Error processing customer: {}", customer.getId(), e);
+            deadLetterPublisher.publish(customer, e, "process", 1);
+            return null;
+        }
+    }
+
+    /**
+     * Throws if the batch could not be written, so it is neither acknowledged nor recorded by
+     * afterWrite.
+     */
+    private void write(List<Customer> processed, Runnable afterWrite) {
+        int failed;
+        try {
+            failed = writeWithRecovery(processed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BatchProcessingException("Interrupted writing customer batch", e);
+        }
+        afterWrite.run();
+        if (failed == 0) {
+            log.info("Successfully processed {} customers", processed.size());
+        } else {
+            log.info("Processed {} customers, {} dead-lettered", processed.size() - failed, failed);
+        }
+    }
+
+    /**
+     * Writes the records, committing everything up to a failing record before retrying it.
+     * Returns the number of records sent to the dead letter topic. Throws on a transient
+     * failure, leaving the rest of the batch to be redelivered.
+     */
+    private int writeWithRecovery(List<Customer> processed) throws InterruptedException {
+        List<Customer> remaining = processed;
+        int limit = remaining.size();
+        int failed = 0;
+        RuntimeException nextFailed = null;
+        while (!remaining.isEmpty()) {
+            RuntimeException failure;
+            try {
+                writeInTransaction(remaining.subList(0, limit));
+                remaining = remaining.subList(limit, remaining.size());
+                limit = remaining.size();
+                if (nextFailed == null || remaining.isEmpty()) {
+                    continue;
+                }
+                failure = nextFailed;
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    throw e;
+                }
+                int index = failedIndex(e, limit);
+                if (index != 0) {
+                    // commit the records before the failing one, or bisect when the driver does not say which
+                    limit = index > 0 ? index : limit / 2;
+                    nextFailed = index > 0 ? e : null;
+                    continue;
+                }
+                failure = e;
+            }
+            nextFailed = null;
+            if (!retryAlone(remaining.get(0), failure)) {
+                failed++;
+            }
+            remaining = remaining.subList(1, remaining.size());
+            limit = remaining.size();
+        }
+        return failed;
+    }
+
+    /**
+     * Retries a record that failed on its own. Returns false once it was dead-lettered.
+     */
+    private boolean retryAlone(Customer customer, RuntimeException failure) throws InterruptedException {
+        RuntimeException last = failure;
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            backOff(attempt);
+            try {
+                writeInTransaction(List.of(customer));
+                log.info("Customer {} written on retry {}", customer.getId(), attempt);
+                return true;
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    throw e;
+                }
+                last = e;
+            }
+        }
+        deadLetterPublisher.publish(customer, last, "write", maxRetries + 1);
+        return false;
+    }
+
+    private void writeInTransaction(List<Customer> customers) {
+        connectionBudget.run("kafka-batch",
+                () -> transactionTemplate.executeWithoutResult(status -> writeChunk(customers)));
+    }
+
+    private void backOff(int attempt) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(backoffMs << Math.min(attempt - 1, 10));
+    }
+
+    /**
+     * Index of the first record the JDBC batch rejected, or -1 if the failure does not say.
+     * Drivers either stop at the failing statement (fewer update counts than records) or
+     * mark it EXECUTE_FAILED; a batch rewritten into one statement marks every record.
+     */
+    static int failedIndex(Throwable failure, int size) {
+        if (size == 1) {
+            return 0;
+        }
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof BatchUpdateException batchFailure) {
+                int[] counts = batchFailure.getUpdateCounts();
+                if (counts == null) {
+                    return -1;
+                }
+                int first = -1;
+                boolean allFailed = true;
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == Statement.EXECUTE_FAILED) {
+                        first = first < 0 ? i : first;
+                    } else {
+                        allFailed = false;
+                    }
+                }
+                if (counts.length < size) {
+                    return first < 0 ? counts.length : first;
+                }
+                return allFailed ? -1 : first;
+            }
+        }
+        return -1;
+    }
+
+    static boolean isTransient(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof TransientDataAccessException || t instanceof DataAccessResourceFailureException
+                    || t instanceof SQLTransientException || t instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeChunk(List<Customer> processed) {
+        try {
+            customerJdbcWriter.write(new Chunk<>(processed), writeMode);
+        } catch (Exception e) {
+            throw new BatchProcessingException("Failed to write customer batch", e);
+        }
+    }
+
+    private void pauseIfSaturated() {
+        if (executor.getQueue().size() > highWaterMark && paused.compareAndSet(false, true)) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+            if (container != null) {
+                container.pause();
+            }
+            pauseCounter.increment();
+            log.info("Pipeline queue at {} records, pausing {}", executor.getQueue().size(), LISTENER_ID);
+        }
+    }
+
+    private void resumeIfDrained() {
+        if (paused.get() && executor.getQueue().size() <= lowWaterMark && paused.compareAndSet(true, false)) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+            if (container != null) {
+                container.resume();
+            }
+            log.info("Pipeline queue drained, resuming {}", LISTENER_ID);
+        }
+    }
+
+    /**
+     * Only reached when several consumers submit at the same moment and overshoot the
+     * high-water mark. The records are already polled, so wait for space instead of dropping them.
+     */
+    private static void waitForQueueSpace(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Customer pipeline is shut down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for pipeline capacity", e);
+        }
+    }
+
+    /**
+     * Ack chain of one listener consumer thread, and where its partitions are rewound to after
+     * a failed batch. failedAt is 0 while the chain is healthy.
+     */
+    private static final class ConsumerState {
+
+        private final Map<TopicPartition, Long> rewind = new ConcurrentHashMap<>();
+        private volatile CompletableFuture<Boolean> lastAck = CompletableFuture.completedFuture(true);
+        private volatile long failedAt;
+        private volatile int failures;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Customer pipeline did not drain within 30s");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.Spring_batch_kafka.consumer;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes customers that could not be processed or written to batch.kafka.dlq.topic,
+ * keyed by customer id. The exception class and message of the root cause travel in the
+ * standard kafka_dlt-* headers, the number of attempts in {@value #ATTEMPTS_HEADER}.
+ * <p>
+ * The send is synchronous and throws if the record could not be published, which fails the
+ * batch, so it is not acknowledged and is delivered again. With batch.kafka.dlq.enabled=false
+ * failed records are only logged.
+ */
+@Component
+@Slf4j
+public class DeadLetterPublisher {
+
+    static final String ATTEMPTS_HEADER = "kafka_dlt-attempts";
+
+    private final KafkaTemplate<String, Customer> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final String topic;
+
+    public DeadLetterPublisher(KafkaTemplate<String, Customer> kafkaTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${batch.kafka.dlq.enabled:true}") boolean enabled,
+                               @Value("${batch.kafka.dlq.topic:${kafka.topics.customer-dlq}}") String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.topic = topic;
+    }
+
+    /**
+     * @param stage where the record failed, "process" or "write"; tags kafka.consumer.dlq
+     * @throws BatchProcessingException if the record could not be published
+     */
+    public void publish(Customer customer, Throwable failure, String stage, int attempts) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(failure);
+        Counter counter = Counter.builder("kafka.consumer.dlq").tag("stage", stage).register(meterRegistry);
+        if (!enabled) {
+            counter.increment();
+            log.error("Dropping customer {} after {} attempt(s) at {}: {}", customer.getId(), attempts, stage,
+                    cause.toString());
+            return;
+        }
+
+        ProducerRecord<String, Customer> record = new ProducerRecord<>(topic, String.valueOf(customer.getId()), customer);
+        record.headers()
+                .add(KafkaHeaders.DLT_EXCEPTION_FQCN, bytes(cause.getClass().getName()))
+                .add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, bytes(String.valueOf(cause.getMessage())))
+                .add(ATTEMPTS_HEADER, bytes(Integer.toString(attempts)));
+        try {
+            kafkaTemplate.send(record).get(30, TimeUnit.SECONDS);
+            counter.increment();
+            log.warn("Customer {} sent to {} after {} attempt(s) at {}: {}", customer.getId(), topic, attempts, stage,
+                    cause.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BatchProcessingException("Interrupted publishing customer " + customer.getId() + " to " + topic, e);
+        } catch (Exception e) {
+            throw new BatchProcessingException("Failed to publish customer " + customer.getId() + " to " + topic, e);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -3,35 +3,70 @@ package com.example.Spring_batch_kafka.consumer;
 import com.example.Spring_batch_kafka.entity.Customer;
 import com.example.Spring_batch_kafka.repository.CustomerRepository;
 import com.example.Spring_batch_kafka.processor.CustomerProcessor;
-import lombok.AllArgsConstructor;
+import com.example.Spring_batch_kafka.service.ConnectionBudget;
+import com.example.Spring_batch_kafka.service.CustomerAggregates;
+import com.example.Spring_batch_kafka.service.CustomerCache;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @Slf4j
-@AllArgsConstructor
-public class KafkaBatchConsumer {
+@RequiredArgsConstructor
+public class KafkaBatchConsumer implements ConsumerSeekAware {
 
-    private CustomerRepository customerRepository;
-    private CustomerProcessor customerProcessor;
+    private final CustomerRepository customerRepository;
+    private final CustomerProcessor customerProcessor;
+    private final CustomerBatchPipeline customerBatchPipeline;
+    private final AcknowledgmentBatcher acknowledgmentBatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final CustomerCache customerCache;
+    private final CustomerAggregates customerAggregates;
+    private final ConnectionBudget connectionBudget;
+    private final RedeliveryFilter redeliveryFilter;
 
     @KafkaListener(
             topics = "${kafka.topics.customer}",
             groupId = "${spring.kafka.consumer.group-id}",
-            concurrency = "${kafka.consumer.concurrency:3}"
+            concurrency = "${kafka.consumer.concurrency:3}",
+            containerFactory = "kafkaRecordListenerContainerFactory"
     )
-    public void consumeCustomer(Customer customer) {
+    public void consumeCustomer(Customer customer, Acknowledgment acknowledgment,
+                                @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                @Header(KafkaHeaders.OFFSET) long offset) {
+        if (redeliveryFilter.isPersisted(topic, partition, offset, customer)) {
+            log.debug("Skipping redelivered customer {} at {}-{}@{}", customer.getId(), topic, partition, offset);
+            acknowledgmentBatcher.acknowledge(acknowledgment, 1);
+            return;
+        }
         try {
             log.info("Processing customer {} on thread {}",
                     customer.getId(), Thread.currentThread().getName());
 
             Customer processed = customerProcessor.process(customer);
-            customerRepository.save(processed);
+            connectionBudget.run("kafka-record", () -> transactionTemplate.executeWithoutResult(status -> {
+                // loads the row the save merges into, so the save does not read it again
+                Map<Long, Customer> replaced = customerRepository.findById(processed.getId())
+                        .map(CustomerAggregates::replaced).orElse(Map.of());
+                List<Customer> saved = List.of(customerRepository.save(processed));
+                customerAggregates.recordWrites(saved, replaced);
+                customerCache.refreshAfterCommit(saved);
+            }));
+            redeliveryFilter.persisted(topic, partition, offset, customer);
+            acknowledgmentBatcher.acknowledge(acknowledgment, 1);
 
         } catch (Exception e) {
             log.error("Error processing customer: {}", customer.getId(), e);
@@ -40,32 +75,34 @@ public class KafkaBatchConsumer {
     }
 
     @KafkaListener(
+            id = CustomerBatchPipeline.LISTENER_ID,
             topics = "${kafka.topics.customer-batch}",
             groupId = "${spring.kafka.consumer.group-id}",
             concurrency = "${kafka.consumer.concurrency:3}",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    public void consumeCustomerBatch(List<Customer> customers) {
-        log.info("Processing batch of {} customers", customers.size());
-
-        try {
-            List<Customer> processedCustomers = customers.parallelStream()
-                    .map(customer -> {
-                        try {
-                            return customerProcessor.process(customer);
-                        } catch (Exception e) {
-                            log.error("Error processing customer: {}", customer.getId(), e);
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-
-            customerRepository.saveAll(processedCustomers);
-            log.info("Successfully processed {} customers", processedCustomers.size());
-
-        } catch (Exception e) {
-            log.error("Error processing customer batch", e);
+    public void consumeCustomerBatch(List<Customer> customers, Acknowledgment acknowledgment,
+                                     @Header(KafkaHeaders.RECEIVED_TOPIC) List<String> topics,
+                                     @Header(KafkaHeaders.RECEIVED_PARTITION) List<Integer> partitions,
+                                     @Header(KafkaHeaders.OFFSET) List<Long> offsets,
+                                     Consumer<?, ?> consumer) {
+        RedeliveryFilter.Batch batch = redeliveryFilter.select(customers, topics, partitions, offsets);
+        if (batch.customers().size() < customers.size()) {
+            log.info("Processing batch of {} customers, {} already persisted", batch.customers().size(),
+                    customers.size() - batch.customers().size());
+        } else {
+            log.info("Processing batch of {} customers", customers.size());
+        }
+        Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+        for (int i = 0; i < offsets.size(); i++) {
+            firstOffsets.putIfAbsent(new TopicPartition(topics.get(i), partitions.get(i)), offsets.get(i));
         }
+        customerBatchPipeline.submit(batch.customers(), firstOffsets, acknowledgment,
+                () -> redeliveryFilter.persisted(batch), consumer);
+    }
+
+    @Override
+    public void onIdleContainer(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        customerBatchPipeline.onIdle(assignments, callback);
     }
 }
@@ -0,0 +1,89 @@
+package com.example.Spring_batch_kafka.consumer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-size set of record fingerprints in a direct buffer, so a million entries cost 24 MB
+ * outside the heap and nothing for the garbage collector to trace. A slot holds the
+ * fingerprint, the customer id it was recorded for and an expiry time.
+ * <p>
+ * A fingerprint lives in one of {@value #PROBES} slots after its hash. Expired slots are
+ * reused; when all of them are live, the one closest to expiry is overwritten, so memory
+ * stays bounded and a full set only forgets, never refuses. Not thread-safe.
+ */
+final class OffHeapRecordSet {
+
+    enum Lookup { MISS, HIT, COLLISION }
+
+    static final int PROBES = 8;
+    static final int SLOT_BYTES = 24;
+    static final int MAX_CAPACITY = 1 << 26;
+
+    private final ByteBuffer slots;
+    private final int mask;
+
+    OffHeapRecordSet(int capacity) {
+        int size = Integer.highestOneBit(Math.max(PROBES, Math.min(capacity, MAX_CAPACITY)) - 1) << 1;
+        slots = ByteBuffer.allocateDirect(size * SLOT_BYTES);
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * HIT if the fingerprint is live for this customer, COLLISION if it is live for another
+     * one (two records with the same fingerprint).
+     */
+    Lookup lookup(long fingerprint, long customerId, long now) {
+        int slot = home(fingerprint);
+        for (int i = 0; i < PROBES; i++, slot = (slot + 1) & mask) {
+            int base = slot * SLOT_BYTES;
+            if (slots.getLong(base + 16) > now && slots.getLong(base) == fingerprint) {
+                return slots.getLong(base + 8) == customerId ? Lookup.HIT : Lookup.COLLISION;
+            }
+        }
+        return Lookup.MISS;
+    }
+
+    /**
+     * Records the fingerprint until expiresAt. Returns true if a live entry was evicted.
+     */
+    boolean put(long fingerprint, long customerId, long expiresAt, long now) {
+        int slot = home(fingerprint);
+        int target = -1;
+        long earliest = Long.MAX_VALUE;
+        for (int i = 0; i < PROBES; i++, slot = (slot + 1) & mask) {
+            int base = slot * SLOT_BYTES;
+            long slotExpiry = slots.getLong(base + 16);
+            if (slotExpiry > now && slots.getLong(base) == fingerprint) {
+                target = slot;
+                earliest = 0;
+                break;
+            }
+            if (slotExpiry <= now) {
+                if (earliest > 0) {
+                    target = slot;
+                    earliest = 0;
+                }
+            } else if (slotExpiry < earliest) {
+                target = slot;
+                earliest = slotExpiry;
+            }
+        }
+        int base = target * SLOT_BYTES;
+        slots.putLong(base, fingerprint);
+        slots.putLong(base + 8, customerId);
+        slots.putLong(base + 16, expiresAt);
+        return earliest != 0;
+    }
+
+    private int home(long fingerprint) {
+        long h = fingerprint;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
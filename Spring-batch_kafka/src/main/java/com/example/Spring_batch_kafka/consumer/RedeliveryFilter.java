@@ -0,0 +1,158 @@
+package com.example.Spring_batch_kafka.consumer;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops customer records that this node has already persisted. Records whose offsets were not
+ * committed yet are delivered again, for instance when {@link CustomerBatchPipeline} rewinds a
+ * failed batch whose other records had committed; with kafka.consumer.dedup.enabled they are
+ * acknowledged without running CustomerProcessor or writing them a second time.
+ * <p>
+ * The set is local to this JVM and starts empty. Records redelivered after a restart, or to
+ * another node after a rebalance, are not recognised and are processed again, as without the
+ * filter. It cannot be seeded from the database, because customers does not record the offset
+ * a row was written from; the upsert write mode is what keeps those redeliveries harmless.
+ * <p>
+ * A record is identified by a 64-bit fingerprint of topic, partition and offset, kept with
+ * its customer id in an {@link OffHeapRecordSet} of kafka.consumer.dedup.capacity entries for
+ * kafka.consumer.dedup.ttl-seconds after its write committed. A fingerprint that matches but
+ * belongs to another customer is a false positive: the record is let through and counted.
+ * Entries evicted from a full set only mean a redelivery is processed again, as without the
+ * filter.
+ * <p>
+ * Meters: kafka.consumer.dedup{result=hit|miss|false-positive} and
+ * kafka.consumer.dedup.evictions.
+ */
+@Component
+@Slf4j
+public class RedeliveryFilter {
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final OffHeapRecordSet records;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter falsePositives;
+    private final Counter evictions;
+
+    public RedeliveryFilter(MeterRegistry meterRegistry,
+                            @Value("${kafka.consumer.dedup.enabled:false}") boolean enabled,
+                            @Value("${kafka.consumer.dedup.capacity:1048576}") int capacity,
+                            @Value("${kafka.consumer.dedup.ttl-seconds:3600}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.records = enabled ? new OffHeapRecordSet(capacity) : null;
+        this.hits = counter(meterRegistry, "kafka.consumer.dedup", "result", "hit");
+        this.misses = counter(meterRegistry, "kafka.consumer.dedup", "result", "miss");
+        this.falsePositives = counter(meterRegistry, "kafka.consumer.dedup", "result", "false-positive");
+        this.evictions = counter(meterRegistry, "kafka.consumer.dedup.evictions");
+        if (enabled) {
+            log.info("Redelivery filter: {} entries, {} MB off-heap, {} s expiry", records.capacity(),
+                    (long) records.capacity() * OffHeapRecordSet.SLOT_BYTES >> 20, ttlSeconds);
+        }
+    }
+
+    /**
+     * Splits a polled batch into the records not persisted yet. The header lists are the
+     * batch listener's, in record order.
+     */
+    public Batch select(List<Customer> customers, List<String> topics, List<Integer> partitions, List<Long> offsets) {
+        if (!enabled) {
+            return new Batch(customers, null, null);
+        }
+        List<Customer> fresh = new ArrayList<>(customers.size());
+        long[] fingerprints = new long[customers.size()];
+        long[] ids = new long[customers.size()];
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (int i = 0; i < customers.size(); i++) {
+                Customer customer = customers.get(i);
+                long fingerprint = fingerprint(topics.get(i), partitions.get(i), offsets.get(i));
+                if (!seen(fingerprint, customer, now)) {
+                    fingerprints[fresh.size()] = fingerprint;
+                    ids[fresh.size()] = customer.getId();
+                    fresh.add(customer);
+                }
+            }
+        }
+        return new Batch(fresh, fingerprints, ids);
+    }
+
+    public boolean isPersisted(String topic, int partition, long offset, Customer customer) {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (this) {
+            return seen(fingerprint(topic, partition, offset), customer, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Records the batch after its write committed.
+     */
+    public void persisted(Batch batch) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (int i = 0; i < batch.customers().size(); i++) {
+                put(batch.fingerprints()[i], batch.ids()[i], now);
+            }
+        }
+    }
+
+    public void persisted(String topic, int partition, long offset, Customer customer) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            put(fingerprint(topic, partition, offset), customer.getId(), System.currentTimeMillis());
+        }
+    }
+
+    static long fingerprint(String topic, int partition, long offset) {
+        long h = topic.hashCode() * 0x9e3779b97f4a7c15L + partition;
+        h = (h ^ (h >>> 29)) * 0xbf58476d1ce4e5b9L + offset;
+        h = (h ^ (h >>> 32)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 29);
+    }
+
+    private boolean seen(long fingerprint, Customer customer, long now) {
+        switch (records.lookup(fingerprint, customer.getId(), now)) {
+            case HIT -> {
+                hits.increment();
+                return true;
+            }
+            case COLLISION -> falsePositives.increment();
+            case MISS -> misses.increment();
+        }
+        return false;
+    }
+
+    private void put(long fingerprint, long id, long now) {
+        if (records.put(fingerprint, id, now + ttlMillis, now)) {
+            evictions.increment();
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String... tags) {
+        return Counter.builder(name).tags(tags).register(meterRegistry);
+    }
+
+    /**
+     * Records of a poll that were not persisted yet, with what {@link #persisted(Batch)} needs
+     * to remember them.
+     */
+    public record Batch(List<Customer> customers, long[] fingerprints, long[] ids) {
+    }
+}
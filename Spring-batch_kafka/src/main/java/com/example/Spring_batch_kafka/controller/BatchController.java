@@ -3,17 +3,19 @@ package com.example.Spring_batch_kafka.controller;
 import com.example.Spring_batch_kafka.dto.BatchJobRequest;
 import com.example.Spring_batch_kafka.dto.JobExecutionResponse;
 import com.example.Spring_batch_kafka.dto.JobExecutionSummary;
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
 import com.example.Spring_batch_kafka.service.BatchMonitoringService;
+import com.example.Spring_batch_kafka.service.JobLaunchQueue;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.*;
-import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
 import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
 import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -29,9 +31,10 @@ import java.util.Map;
 @Tag(name = "Batch Processing", description = "Batch job management and execution APIs")
 public class BatchController {
 
-    private final JobLauncher jobLauncher;
+    private final JobLaunchQueue jobLaunchQueue;
     private final Job csvToKafkaJob;
     private final Job partitionedJob;
+    private final ObjectProvider<Job> remoteChunkingJob;
     private final BatchMonitoringService monitoringService;
 
     // ===================================
@@ -40,7 +43,7 @@ public class BatchController {
 
     @PostMapping("/start-kafka-batch")
     @Operation(summary = "Start Kafka-based batch processing",
-            description = "Reads CSV file and publishes to Kafka for parallel processing")
+            description = "Queues a job that reads the CSV file and publishes to Kafka; returns 202 with the execution id")
     public ResponseEntity<JobExecutionResponse> startKafkaBatch(
             @RequestBody(required = false) BatchJobRequest request) {
 
@@ -48,18 +51,22 @@ public class BatchController {
             log.info("Starting Kafka batch job");
 
             JobParameters jobParameters = buildJobParameters(request);
-            JobExecution execution = jobLauncher.run(csvToKafkaJob, jobParameters);
+            JobExecution execution = jobLaunchQueue.submit(csvToKafkaJob, jobParameters, priority(request));
 
             JobExecutionResponse response = JobExecutionResponse.builder()
                     .executionId(execution.getId())
                     .jobName(execution.getJobInstance().getJobName())
                     .status(execution.getStatus().name())
                     .startTime(execution.getStartTime())
-                    .message("Kafka batch job started successfully")
+                    .queuePosition(queuePosition(execution))
+                    .message("Kafka batch job queued")
                     .build();
 
-            log.info("Kafka batch job started with execution id: {}", execution.getId());
-            return ResponseEntity.ok(response);
+            log.info("Kafka batch job queued with execution id: {}", execution.getId());
+            return ResponseEntity.accepted().body(response);
+
+        } catch (BatchProcessingException e) {
+            return queueFull(e);
 
         } catch (JobExecutionAlreadyRunningException e) {
             log.warn("Job is already running");
@@ -85,7 +92,7 @@ public class BatchController {
 
     @PostMapping("/start-partitioned-batch")
     @Operation(summary = "Start partitioned batch processing",
-            description = "Processes data using multi-threaded partitioning")
+            description = "Queues a job that imports the CSV with multi-threaded partitioning; returns 202 with the execution id")
     public ResponseEntity<JobExecutionResponse> startPartitionedBatch(
             @RequestBody(required = false) BatchJobRequest request) {
 
@@ -93,18 +100,22 @@ public class BatchController {
             log.info("Starting partitioned batch job");
 
             JobParameters jobParameters = buildJobParameters(request);
-            JobExecution execution = jobLauncher.run(partitionedJob, jobParameters);
+            JobExecution execution = jobLaunchQueue.submit(partitionedJob, jobParameters, priority(request));
 
             JobExecutionResponse response = JobExecutionResponse.builder()
                     .executionId(execution.getId())
                     .jobName(execution.getJobInstance().getJobName())
                     .status(execution.getStatus().name())
                     .startTime(execution.getStartTime())
-                    .message("Partitioned batch job started successfully")
+                    .queuePosition(queuePosition(execution))
+                    .message("Partitioned batch job queued")
                     .build();
 
-            log.info("Partitioned batch job started with execution id: {}", execution.getId());
-            return ResponseEntity.ok(response);
+            log.info("Partitioned batch job queued with execution id: {}", execution.getId());
+            return ResponseEntity.accepted().body(response);
+
+        } catch (BatchProcessingException e) {
+            return queueFull(e);
 
         } catch (Exception e) {
             log.error("Error starting partitioned batch job", e);
@@ -113,6 +124,46 @@ public class BatchController {
         }
     }
 
+    @PostMapping("/start-remote-chunking-batch")
+    @Operation(summary = "Start remote chunking batch processing",
+            description = "Queues a job that reads the CSV on this node and processes chunks on remote workers over Kafka")
+    public ResponseEntity<JobExecutionResponse> startRemoteChunkingBatch(
+            @RequestBody(required = false) BatchJobRequest request) {
+
+        Job job = remoteChunkingJob.getIfAvailable();
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(JobExecutionResponse.error("Remote chunking is not enabled on this node"));
+        }
+
+        try {
+            log.info("Starting remote chunking batch job");
+
+            JobParameters jobParameters = buildJobParameters(request);
+            JobExecution execution = jobLaunchQueue.submit(job, jobParameters, priority(request));
+
+            JobExecutionResponse response = JobExecutionResponse.builder()
+                    .executionId(execution.getId())
+                    .jobName(execution.getJobInstance().getJobName())
+                    .status(execution.getStatus().name())
+                    .startTime(execution.getStartTime())
+                    .queuePosition(queuePosition(execution))
+                    .message("Remote chunking batch job queued")
+                    .build();
+
+            log.info("Remote chunking batch job queued with execution id: {}", execution.getId());
+            return ResponseEntity.accepted().body(response);
+
+        } catch (BatchProcessingException e) {
+            return queueFull(e);
+
+        } catch (Exception e) {
+            log.error("Error starting remote chunking batch job", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(JobExecutionResponse.error("Failed to start job: " + e.getMessage()));
+        }
+    }
+
     // ===================================
     // Job Status & Monitoring
     // ===================================
@@ -134,13 +185,15 @@ public class BatchController {
 
     @GetMapping("/executions")
     @Operation(summary = "Get recent job executions",
-            description = "Returns list of recent batch job executions")
+            description = "Returns list of recent batch job executions, newest first")
     public ResponseEntity<List<JobExecutionSummary>> getRecentExecutions(
             @Parameter(description = "Number of executions to retrieve")
-            @RequestParam(defaultValue = "10") int count) {
+            @RequestParam(defaultValue = "10") int count,
+            @Parameter(description = "Return executions older than this execution ID (last ID of the previous page)")
+            @RequestParam(required = false) Long beforeId) {
 
         try {
-            List<JobExecutionSummary> executions = monitoringService.getRecentJobExecutions(count);
+            List<JobExecutionSummary> executions = monitoringService.getRecentJobExecutions(beforeId, count);
             return ResponseEntity.ok(executions);
         } catch (Exception e) {
             log.error("Error getting recent executions", e);
@@ -154,11 +207,13 @@ public class BatchController {
     public ResponseEntity<List<JobExecutionSummary>> getExecutionsByJobName(
             @Parameter(description = "Job name") @PathVariable String jobName,
             @Parameter(description = "Number of executions to retrieve")
-            @RequestParam(defaultValue = "10") int count) {
+            @RequestParam(defaultValue = "10") int count,
+            @Parameter(description = "Return executions older than this execution ID (last ID of the previous page)")
+            @RequestParam(required = false) Long beforeId) {
 
         try {
             List<JobExecutionSummary> executions =
-                    monitoringService.getJobExecutionsByName(jobName, count);
+                    monitoringService.getJobExecutionsByName(jobName, beforeId, count);
             return ResponseEntity.ok(executions);
         } catch (Exception e) {
             log.error("Error getting executions for job: {}", jobName, e);
@@ -270,6 +325,23 @@ public class BatchController {
     // Helper Methods
     // ===================================
 
+    private Integer queuePosition(JobExecution execution) {
+        int position = jobLaunchQueue.getPosition(execution.getId());
+        return position < 0 ? null : position;
+    }
+
+    private static int priority(BatchJobRequest request) {
+        return request == null || request.getPriority() == null ? 0 : request.getPriority();
+    }
+
+    private static ResponseEntity<JobExecutionResponse> queueFull(BatchProcessingException e) {
+        if (!JobLaunchQueue.QUEUE_FULL.equals(e.getErrorCode())) {
+            throw e;
+        }
+        log.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(JobExecutionResponse.error(e.getMessage()));
+    }
+
     private JobParameters buildJobParameters(BatchJobRequest request) {
         JobParametersBuilder builder = new JobParametersBuilder();
         builder.addLong("startTime", System.currentTimeMillis());
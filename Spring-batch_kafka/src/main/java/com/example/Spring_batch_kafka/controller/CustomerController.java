@@ -1,19 +1,26 @@
 package com.example.Spring_batch_kafka.controller;
 
+import com.example.Spring_batch_kafka.dto.CustomerPage;
 import com.example.Spring_batch_kafka.entity.Customer;
 import com.example.Spring_batch_kafka.repository.CustomerRepository;
+import com.example.Spring_batch_kafka.service.CustomerExportService;
 import com.example.Spring_batch_kafka.service.CustomerService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/customers")
@@ -23,6 +30,7 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerExportService customerExportService;
 
     @GetMapping
     @Operation(summary = "Get all customers", description = "Returns paginated list of customers")
@@ -34,6 +42,43 @@ public class CustomerController {
         return ResponseEntity.ok(customers);
     }
 
+    @GetMapping("/keyset")
+    @Operation(summary = "Get customers by keyset",
+            description = "Returns customers in id order after the given id, without a count query")
+    public ResponseEntity<CustomerPage> getCustomersAfter(
+            @Parameter(description = "Return customers with a larger ID (nextAfterId of the previous page)")
+            @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Only customers of this country")
+            @RequestParam(required = false) String country,
+            @RequestParam(defaultValue = "100") int size) {
+
+        return ResponseEntity.ok(customerService.getCustomersAfter(afterId, country, size));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export customers",
+            description = "Streams all customers in id order as NDJSON or CSV")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @Parameter(description = "ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Resume after this customer ID")
+            @RequestParam(defaultValue = "0") long afterId,
+            @Parameter(description = "Only customers of this country")
+            @RequestParam(required = false) String country) {
+
+        CustomerExportService.Format exportFormat =
+                CustomerExportService.Format.from(format, CustomerExportService.Format.NDJSON)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Unsupported format '" + format + "', allowed: "
+                                        + String.join(", ", CustomerExportService.Format.names())));
+        StreamingResponseBody body = out -> customerExportService.export(exportFormat, afterId, country, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=customers." + exportFormat.name().toLowerCase())
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get customer by ID")
     public ResponseEntity<Customer> getCustomerById(@PathVariable Long id) {
@@ -43,10 +88,15 @@ public class CustomerController {
     }
 
     @GetMapping("/country/{country}")
-    @Operation(summary = "Get customers by country")
-    public ResponseEntity<List<Customer>> getCustomersByCountry(@PathVariable String country) {
-        List<Customer> customers = customerService.getCustomersByCountry(country);
-        return ResponseEntity.ok(customers);
+    @Operation(summary = "Get customers by country",
+            description = "Returns a keyset page of the country's customers in id order")
+    public ResponseEntity<CustomerPage> getCustomersByCountry(
+            @PathVariable String country,
+            @Parameter(description = "Return customers with a larger ID (nextAfterId of the previous page)")
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "100") int size) {
+
+        return ResponseEntity.ok(customerService.getCustomersAfter(afterId, country, size));
     }
 
     @PostMapping
@@ -81,6 +131,19 @@ public class CustomerController {
         return ResponseEntity.ok(count);
     }
 
+    @GetMapping("/country/{country}/count")
+    @Operation(summary = "Get customer count by country")
+    public ResponseEntity<Long> getCustomerCountByCountry(@PathVariable String country) {
+        return ResponseEntity.ok(customerService.getCustomerCountByCountry(country));
+    }
+
+    @GetMapping("/aggregates")
+    @Operation(summary = "Get customer aggregates",
+            description = "Returns total, processed, per-country and per-gender customer counts")
+    public ResponseEntity<Map<String, Object>> getCustomerAggregates() {
+        return ResponseEntity.ok(customerService.getCustomerAggregates());
+    }
+
     @GetMapping("/processed/count")
     @Operation(summary = "Get processed customer count")
     public ResponseEntity<Long> getProcessedCustomerCount() {
@@ -0,0 +1,50 @@
+package com.example.Spring_batch_kafka.controller;
+
+import com.example.Spring_batch_kafka.service.CustomerStreamStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/customers/live")
+@AllArgsConstructor
+@ConditionalOnProperty(name = "kafka.streams.enabled", havingValue = "true")
+@Tag(name = "Live Customer Stats", description = "Ingestion counts queried from the Kafka Streams state stores")
+public class CustomerStreamController {
+
+    private final CustomerStreamStats customerStreamStats;
+
+    @GetMapping
+    @Operation(summary = "Get live customer counts",
+            description = "Returns total, per-country and per-gender counts of the customers received on customer-topic")
+    public ResponseEntity<Map<String, Object>> getSummary() {
+        return ResponseEntity.ok(customerStreamStats.getSummary());
+    }
+
+    @GetMapping("/country/{country}/count")
+    @Operation(summary = "Get live customer count by country")
+    public ResponseEntity<Long> getCountryCount(@PathVariable String country) {
+        return ResponseEntity.ok(customerStreamStats.getCountryCount(country));
+    }
+
+    @GetMapping("/rate")
+    @Operation(summary = "Get ingestion rate",
+            description = "Returns the records received per window, oldest first")
+    public ResponseEntity<List<Map<String, Object>>> getRate(
+            @Parameter(description = "How far back to return windows")
+            @RequestParam(defaultValue = "15") int minutes) {
+        return ResponseEntity.ok(customerStreamStats.getRate(Duration.ofMinutes(Math.max(1, minutes))));
+    }
+}
@@ -14,5 +14,7 @@ public class BatchJobRequest {
     private String inputFile;
     private String outputFile;
     private Integer chunkSize;
+    // launch order in the job queue, higher first (default 0)
+    private Integer priority;
     private Map<String, String> parameters;
 }
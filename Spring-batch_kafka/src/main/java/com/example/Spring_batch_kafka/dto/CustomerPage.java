@@ -0,0 +1,23 @@
+package com.example.Spring_batch_kafka.dto;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page. Pass nextAfterId as afterId to fetch the next page; it is null on the
+ * last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerPage {
+    private List<Customer> customers;
+    private int size;
+    private Long nextAfterId;
+}
@@ -18,6 +18,7 @@ public class JobExecutionResponse {
     private String status;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    private Integer queuePosition;
     private String message;
     private String error;
 
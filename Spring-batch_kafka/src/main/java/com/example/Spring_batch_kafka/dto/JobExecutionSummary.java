@@ -22,4 +22,6 @@ public class JobExecutionSummary {
     private Long readCount;
     private Long writeCount;
     private Long failureCount;
+    private Double progress;
+    private Boolean local;
 }
@@ -0,0 +1,19 @@
+package com.example.Spring_batch_kafka.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What travels on the remote partitioning topics, in both directions: the ids of a worker
+ * step execution. Everything else (execution context, counts, status) is read from the
+ * shared JobRepository on either side.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionMessage {
+    private Long jobExecutionId;
+    private Long stepExecutionId;
+    private String stepName;
+}
@@ -0,0 +1,67 @@
+package com.example.Spring_batch_kafka.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * One counter row of customer_aggregates. Each (dimension, value) is split over several
+ * shards, so concurrent chunk transactions increment different rows instead of queueing on
+ * a single hot "total" row. The real count is the sum over shards.
+ */
+@Entity
+@Table(name = "customer_aggregates")
+@IdClass(CustomerAggregate.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerAggregate {
+
+    public static final String TOTAL = "total";
+    public static final String PROCESSED = "processed";
+    public static final String COUNTRY = "country";
+    public static final String GENDER = "gender";
+
+    @Id
+    @Column(name = "dimension", length = 16)
+    private String dimension;
+
+    @Id
+    @Column(name = "dim_value")
+    private String dimValue;
+
+    @Id
+    @Column(name = "shard")
+    private int shard;
+
+    @Column(name = "customer_count", nullable = false)
+    private long customerCount;
+
+    /**
+     * A counter independent of its shards. Null values are stored as ''.
+     */
+    public record Bucket(String dimension, String value) implements Comparable<Bucket> {
+
+        public Bucket {
+            value = value == null ? "" : value;
+        }
+
+        @Override
+        public int compareTo(Bucket other) {
+            int byDimension = dimension.compareTo(other.dimension);
+            return byDimension != 0 ? byDimension : value.compareTo(other.value);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String dimension;
+        private String dimValue;
+        private int shard;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.Spring_batch_kafka.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Content hash of the last imported version of a customer row, used by incremental imports to
+ * skip rows that have not changed since.
+ */
+@Entity
+@Table(name = "customer_row_hashes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerRowHash {
+
+    @Id
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "row_hash", nullable = false)
+    private long rowHash;
+}
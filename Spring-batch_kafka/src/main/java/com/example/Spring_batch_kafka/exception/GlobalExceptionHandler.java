@@ -1,12 +1,14 @@
 package com.example.Spring_batch_kafka.exception;
 
 import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import com.example.Spring_batch_kafka.service.CustomerStreamStats;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,15 +20,31 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(BatchProcessingException.class)
     public ResponseEntity<Map<String, String>> handleBatchProcessingException(
             BatchProcessingException ex) {
-        log.error("Batch processing error", ex);
-
         Map<String, String> error = new HashMap<>();
-        error.put("error", "Batch Processing Failed");
         error.put("message", ex.getMessage());
 
+        if (CustomerStreamStats.NOT_READY.equals(ex.getErrorCode())) {
+            log.warn(ex.getMessage());
+            error.put("error", "Stream Not Ready");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
+        log.error("Batch processing error", ex);
+        error.put("error", "Batch Processing Failed");
+
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
 
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, String>> handleResponseStatusException(ResponseStatusException ex) {
+        log.warn(ex.getMessage());
+
+        Map<String, String> error = new HashMap<>();
+        error.put("error", HttpStatus.valueOf(ex.getStatusCode().value()).getReasonPhrase());
+        error.put("message", ex.getReason());
+
+        return ResponseEntity.status(ex.getStatusCode()).body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception ex) {
         log.error("Unexpected error", ex);
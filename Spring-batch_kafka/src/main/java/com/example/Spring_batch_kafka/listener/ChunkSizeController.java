@@ -0,0 +1,263 @@
+package com.example.Spring_batch_kafka.listener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.CompletionPolicy;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Commit interval of the chunk-oriented steps. A step starts with the chunkSize job parameter,
+ * or the default passed to {@link #policy(int)}.
+ * <p>
+ * With batch.chunk.adaptive.enabled, the interval is recomputed after every committed chunk
+ * so that a chunk transaction takes about batch.chunk.adaptive.target-latency-ms, within
+ * min-size and max-size. The per-item cost is a moving average over the last chunks, a
+ * change never more than doubles or halves the size, and changes under 20% are ignored.
+ * <p>
+ * Every change is logged, counted in batch.chunk.size.adjustments{direction}, and the size
+ * is published as the batch.chunk.size gauge with the {@link StepMetricsListener} tags. The
+ * gauge and counters of a partition are removed when it ends. The current size is kept in the
+ * step's execution context under {@value #CHUNK_SIZE_KEY}, so a restarted step resumes with it.
+ */
+@Component
+@Slf4j
+public class ChunkSizeController {
+
+    public static final String CHUNK_SIZE_PARAMETER = "chunkSize";
+    public static final String CHUNK_SIZE_KEY = "chunk.size";
+    public static final String ADJUSTMENTS_KEY = "chunk.size.adjustments";
+
+    private static final double SMOOTHING = 0.3;
+    private static final double DEADBAND = 1.25;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean adaptive;
+    private final long targetLatencyNanos;
+    private final int minSize;
+    private final int maxSize;
+    private final Map<Tags, AtomicInteger> sizes = new ConcurrentHashMap<>();
+
+    public ChunkSizeController(MeterRegistry meterRegistry,
+                               @Value("${batch.chunk.adaptive.enabled:false}") boolean adaptive,
+                               @Value("${batch.chunk.adaptive.target-latency-ms:500}") long targetLatencyMs,
+                               @Value("${batch.chunk.adaptive.min-size:10}") int minSize,
+                               @Value("${batch.chunk.adaptive.max-size:5000}") int maxSize) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException(
+                    "Invalid chunk size bounds: min-size=" + minSize + ", max-size=" + maxSize);
+        }
+        this.meterRegistry = meterRegistry;
+        this.adaptive = adaptive;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Completion policy for one step. It must also be registered as the step's
+     * StepExecutionListener and ChunkListener.
+     */
+    public Policy policy(int defaultSize) {
+        return new Policy(defaultSize);
+    }
+
+    /**
+     * Next chunk size, given the current one and the average cost of one item.
+     */
+    int next(int size, double nanosPerItem) {
+        if (nanosPerItem <= 0) {
+            return size;
+        }
+        double wanted = targetLatencyNanos / nanosPerItem;
+        if (wanted < size * DEADBAND && wanted > size / DEADBAND) {
+            return size;
+        }
+        double bounded = Math.max(size / 2.0, Math.min(size * 2.0, wanted));
+        return clamp(Math.round(bounded));
+    }
+
+    int initialSize(JobParameters jobParameters, int defaultSize) {
+        // a Long from BatchJobRequest.chunkSize, or a string from its parameters map
+        JobParameter<?> parameter = jobParameters.getParameter(CHUNK_SIZE_PARAMETER);
+        Long requested = parameter == null ? null
+                : parameter.getValue() instanceof Number number ? Long.valueOf(number.longValue())
+                : Long.valueOf(parameter.getValue().toString().trim());
+        if (requested != null && requested < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive, was " + requested);
+        }
+        long size = requested != null ? requested : defaultSize;
+        return adaptive ? clamp(size) : (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    /**
+     * Delegates to a {@link SimpleCompletionPolicy} per step execution. A step execution runs
+     * its chunks and callbacks on one thread, so concurrent partitions of the same step share
+     * this policy through a thread local.
+     */
+    public final class Policy implements CompletionPolicy, StepExecutionListener, ChunkListener {
+
+        private final int defaultSize;
+        private final CompletionPolicy fallback;
+        private final ThreadLocal<StepChunks> current = new ThreadLocal<>();
+
+        private Policy(int defaultSize) {
+            this.defaultSize = defaultSize;
+            this.fallback = new SimpleCompletionPolicy(defaultSize);
+        }
+
+        @Override
+        public void beforeStep(StepExecution stepExecution) {
+            ExecutionContext context = stepExecution.getExecutionContext();
+            int size = context.containsKey(CHUNK_SIZE_KEY)
+                    ? context.getInt(CHUNK_SIZE_KEY)
+                    : initialSize(stepExecution.getJobParameters(), defaultSize);
+            StepChunks chunks = new StepChunks(stepExecution, size);
+            context.putInt(CHUNK_SIZE_KEY, size);
+            current.set(chunks);
+            log.debug("{} starts with chunk size {}", stepExecution.getStepName(), size);
+        }
+
+        @Override
+        public ExitStatus afterStep(StepExecution stepExecution) {
+            StepChunks chunks = current.get();
+            current.remove();
+            if (chunks != null && chunks.adjustments > 0) {
+                stepExecution.getExecutionContext().putInt(ADJUSTMENTS_KEY, chunks.adjustments);
+                log.info("{} finished with chunk size {} after {} adjustments", stepExecution.getStepName(),
+                        chunks.policy.getChunkSize(), chunks.adjustments);
+            }
+            if (chunks != null && StepMetricsListener.isPartition(stepExecution)) {
+                sizes.remove(chunks.tags);
+                meterRegistry.find("batch.chunk.size").tags(chunks.tags).meters().forEach(meterRegistry::remove);
+                meterRegistry.find("batch.chunk.size.adjustments").tags(chunks.tags).meters()
+                        .forEach(meterRegistry::remove);
+            }
+            return null;
+        }
+
+        @Override
+        public void beforeChunk(ChunkContext context) {
+            StepChunks chunks = current.get();
+            if (chunks != null) {
+                chunks.start = System.nanoTime();
+                chunks.itemsBefore = chunks.itemsSeen();
+            }
+        }
+
+        @Override
+        public void afterChunk(ChunkContext context) {
+            StepChunks chunks = current.get();
+            if (chunks == null || chunks.start == 0) {
+                return;
+            }
+            long elapsed = System.nanoTime() - chunks.start;
+            long items = chunks.itemsSeen() - chunks.itemsBefore;
+            chunks.start = 0;
+            if (adaptive && items > 0) {
+                chunks.adjust(elapsed, items);
+            }
+        }
+
+        @Override
+        public void afterChunkError(ChunkContext context) {
+            StepChunks chunks = current.get();
+            if (chunks != null) {
+                chunks.start = 0;
+            }
+        }
+
+        @Override
+        public boolean isComplete(RepeatContext context, RepeatStatus result) {
+            return delegate().isComplete(context, result);
+        }
+
+        @Override
+        public boolean isComplete(RepeatContext context) {
+            return delegate().isComplete(context);
+        }
+
+        @Override
+        public RepeatContext start(RepeatContext parent) {
+            return delegate().start(parent);
+        }
+
+        @Override
+        public void update(RepeatContext context) {
+            delegate().update(context);
+        }
+
+        private CompletionPolicy delegate() {
+            StepChunks chunks = current.get();
+            return chunks == null ? fallback : chunks.policy;
+        }
+    }
+
+    private final class StepChunks {
+
+        private final StepExecution stepExecution;
+        private final SimpleCompletionPolicy policy;
+        private final AtomicInteger gauge;
+        private final Tags tags;
+        private double nanosPerItem;
+        private long itemsBefore;
+        private long start;
+        private int adjustments;
+
+        StepChunks(StepExecution stepExecution, int size) {
+            this.stepExecution = stepExecution;
+            this.policy = new SimpleCompletionPolicy(size);
+            this.tags = StepMetricsListener.tags(stepExecution);
+            this.gauge = sizes.computeIfAbsent(tags,
+                    key -> meterRegistry.gauge("batch.chunk.size", key, new AtomicInteger()));
+            gauge.set(size);
+        }
+
+        long itemsSeen() {
+            return stepExecution.getReadCount() + stepExecution.getReadSkipCount();
+        }
+
+        void adjust(long elapsedNanos, long items) {
+            double sample = (double) elapsedNanos / items;
+            nanosPerItem = nanosPerItem == 0 ? sample : SMOOTHING * sample + (1 - SMOOTHING) * nanosPerItem;
+            int size = policy.getChunkSize();
+            int next = next(size, nanosPerItem);
+            if (next == size) {
+                return;
+            }
+            policy.setChunkSize(next);
+            gauge.set(next);
+            adjustments++;
+            stepExecution.getExecutionContext().putInt(CHUNK_SIZE_KEY, next);
+            Counter.builder("batch.chunk.size.adjustments")
+                    .tags(tags.and("direction", next > size ? "up" : "down"))
+                    .register(meterRegistry)
+                    .increment();
+            log.info("{} chunk size {} -> {} ({} items took {} ms, target {} ms)", stepExecution.getStepName(),
+                    size, next, items, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    TimeUnit.NANOSECONDS.toMillis(targetLatencyNanos));
+        }
+    }
+}
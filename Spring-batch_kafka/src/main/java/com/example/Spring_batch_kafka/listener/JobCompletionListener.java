@@ -5,8 +5,8 @@ import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.stereotype.Component;
 
-import java.time.ZoneId;
-import java.util.Date;
+import java.time.Duration;
+import java.time.LocalDateTime;
 
 @Component
 @Slf4j
@@ -26,14 +26,10 @@ public class JobCompletionListener implements JobExecutionListener {
                 jobExecution.getStatus(),
                 jobExecution.getEndTime());
 
-        Date startDate = Date.from(jobExecution.getStartTime().atZone(ZoneId.systemDefault()).toInstant());
-        Date endDate = Date.from(jobExecution.getEndTime().atZone(ZoneId.systemDefault()).toInstant());
-        long millis = endDate.getTime() - startDate.getTime();
-
-
-        if (jobExecution.getEndTime() != null && jobExecution.getStartTime() != null) {
-            log.info("Job execution time: {} ms",
-                    millis);
+        LocalDateTime start = jobExecution.getStartTime();
+        LocalDateTime end = jobExecution.getEndTime() != null ? jobExecution.getEndTime() : LocalDateTime.now();
+        if (start != null) {
+            log.info("Job execution time: {} ms", Duration.between(start, end).toMillis());
         }
     }
 }
\ No newline at end of file
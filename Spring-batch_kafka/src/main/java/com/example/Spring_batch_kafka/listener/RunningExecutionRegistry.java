@@ -0,0 +1,229 @@
+package com.example.Spring_batch_kafka.listener;
+
+import com.example.Spring_batch_kafka.dto.JobExecutionSummary;
+import com.example.Spring_batch_kafka.repository.JobExecutionQueryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Live view of the job executions running in this JVM, fed by job, step and chunk callbacks.
+ * /running and /stats read it, so their cost depends on how many jobs are running, not on
+ * how much history exists. Counts are refreshed after every committed chunk. Progress is
+ * the bytes read so far (partition offsets and the reader's saved "position") divided by the
+ * input file size.
+ * <p>
+ * {@link #reconcile()} compares the registry with the JobRepository on a timer. It drops
+ * entries whose execution is no longer running there, and adds executions that are marked
+ * running but not tracked here. Those come from another instance, or were left STARTED by
+ * a crash; they are reported with local=false.
+ */
+@Component
+@Slf4j
+public class RunningExecutionRegistry implements JobExecutionListener, StepExecutionListener, ChunkListener {
+
+    private static final String POSITION_SUFFIX = ".position";
+
+    private final JobExecutionQueryRepository jobExecutionQueryRepository;
+    private final Map<Long, RunningExecution> running = new ConcurrentHashMap<>();
+    private final Map<Long, JobExecutionSummary> untracked = new ConcurrentHashMap<>();
+
+    public RunningExecutionRegistry(JobExecutionQueryRepository jobExecutionQueryRepository) {
+        this.jobExecutionQueryRepository = jobExecutionQueryRepository;
+    }
+
+    public List<JobExecutionSummary> getRunningExecutions() {
+        return Stream.concat(
+                        running.values().stream().map(RunningExecution::toSummary),
+                        untracked.values().stream())
+                .sorted(Comparator.comparing(JobExecutionSummary::getExecutionId).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public int getRunningCount() {
+        return running.size() + untracked.size();
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        track(jobExecution);
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        running.remove(jobExecution.getId());
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        track(stepExecution.getJobExecution()).steps.put(stepExecution.getId(), new StepProgress(stepExecution));
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        update(stepExecution);
+        return null;
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        update(context.getStepContext().getStepExecution());
+    }
+
+    @Scheduled(fixedDelayString = "${batch.monitoring.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        long queriedAt = System.nanoTime();
+        List<JobExecutionSummary> persisted;
+        try {
+            persisted = jobExecutionQueryRepository.findRunning();
+        } catch (Exception e) {
+            log.warn("Running execution reconciliation failed: {}", e.getMessage());
+            return;
+        }
+        Set<Long> persistedIds = persisted.stream().map(JobExecutionSummary::getExecutionId).collect(Collectors.toSet());
+
+        running.values().removeIf(execution -> {
+            boolean stale = execution.trackedAt < queriedAt && !persistedIds.contains(execution.executionId);
+            if (stale) {
+                log.info("Dropping execution {} from the running registry, it is no longer running",
+                        execution.executionId);
+            }
+            return stale;
+        });
+        untracked.clear();
+        for (JobExecutionSummary summary : persisted) {
+            if (!running.containsKey(summary.getExecutionId())) {
+                summary.setLocal(false);
+                untracked.put(summary.getExecutionId(), summary);
+            }
+        }
+    }
+
+    private RunningExecution track(JobExecution jobExecution) {
+        return running.computeIfAbsent(jobExecution.getId(), id -> new RunningExecution(jobExecution));
+    }
+
+    private void update(StepExecution stepExecution) {
+        RunningExecution execution = running.get(stepExecution.getJobExecutionId());
+        StepProgress step = execution == null ? null : execution.steps.get(stepExecution.getId());
+        if (step != null) {
+            step.update(stepExecution);
+        }
+    }
+
+    private static final class RunningExecution {
+
+        private final long executionId;
+        private final String jobName;
+        private final LocalDateTime startTime;
+        private final long trackedAt = System.nanoTime();
+        private final Map<Long, StepProgress> steps = new ConcurrentHashMap<>();
+        private volatile long inputBytes = -1;
+
+        RunningExecution(JobExecution jobExecution) {
+            this.executionId = jobExecution.getId();
+            this.jobName = jobExecution.getJobInstance().getJobName();
+            this.startTime = jobExecution.getStartTime() != null ? jobExecution.getStartTime() : LocalDateTime.now();
+        }
+
+        JobExecutionSummary toSummary() {
+            long read = 0;
+            long write = 0;
+            long skips = 0;
+            long bytesDone = 0;
+            for (StepProgress step : steps.values()) {
+                read += step.readCount;
+                write += step.writeCount;
+                skips += step.skipCount;
+                bytesDone += step.bytesDone();
+                if (inputBytes < 0 && step.inputFile != null) {
+                    inputBytes = sizeOf(step.inputFile);
+                }
+            }
+            return JobExecutionSummary.builder()
+                    .executionId(executionId)
+                    .jobName(jobName)
+                    .status(BatchStatus.STARTED.name())
+                    .startTime(startTime)
+                    .duration(Duration.between(startTime, LocalDateTime.now()).toMillis())
+                    .readCount(read)
+                    .writeCount(write)
+                    .failureCount(skips)
+                    .progress(inputBytes > 0 ? Math.min(1.0, (double) bytesDone / inputBytes) : null)
+                    .local(true)
+                    .build();
+        }
+
+        private static long sizeOf(String file) {
+            try {
+                return Files.size(Paths.get(file));
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Written only by the thread running the step, read by request threads.
+     */
+    private static final class StepProgress {
+
+        private final String inputFile;
+        private final long startOffset;
+        private final long endOffset;
+        private volatile long position;
+        private volatile long readCount;
+        private volatile long writeCount;
+        private volatile long skipCount;
+        private volatile boolean finished;
+
+        StepProgress(StepExecution stepExecution) {
+            ExecutionContext context = stepExecution.getExecutionContext();
+            this.inputFile = context.containsKey("inputFile") ? context.getString("inputFile") : null;
+            this.startOffset = context.containsKey("startOffset") ? context.getLong("startOffset") : -1;
+            this.endOffset = context.containsKey("endOffset") ? context.getLong("endOffset") : -1;
+            this.position = startOffset;
+        }
+
+        void update(StepExecution stepExecution) {
+            readCount = stepExecution.getReadCount();
+            writeCount = stepExecution.getWriteCount();
+            skipCount = stepExecution.getSkipCount();
+            finished = stepExecution.getStatus() == BatchStatus.COMPLETED;
+            for (Map.Entry<String, Object> entry : stepExecution.getExecutionContext().entrySet()) {
+                if (entry.getKey().endsWith(POSITION_SUFFIX) && entry.getValue() instanceof Long offset) {
+                    position = offset;
+                }
+            }
+        }
+
+        long bytesDone() {
+            if (startOffset < 0) {
+                return 0;
+            }
+            return finished ? endOffset - startOffset : Math.max(0, position - startOffset);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.Spring_batch_kafka.listener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes per-step meters tagged with job, step and partition. For workerStep:partition3
+ * the tags are step=workerStep, partition=partition3; other steps get partition=none.
+ * <ul>
+ *   <li>batch.item.read / batch.item.process / batch.chunk.write - timers with percentile histograms.
+ *   With async processing, batch.chunk.write includes waiting for the item futures</li>
+ *   <li>batch.chunk.duration - whole chunk; batch.chunk.commit - end of write to end of commit</li>
+ *   <li>batch.step.items{type=read|write|filter} - counters, rate() gives items/sec</li>
+ *   <li>batch.step.throughput - written items/sec of the last finished execution</li>
+ *   <li>batch.step.skips{phase}, batch.step.rollbacks, batch.step.duration{status}</li>
+ * </ul>
+ * The timers of a partition are removed when its step execution ends, so a job with hundreds
+ * of partitions does not leave hundreds of histograms behind; its counters and step meters stay.
+ * <p>
+ * Item and chunk callbacks run on the step's own thread. Processing may run on another
+ * thread, so it is timed by {@link #timed(ItemProcessor)} through the step context.
+ */
+@Component
+@Slf4j
+public class StepMetricsListener implements StepExecutionListener, ChunkListener,
+        ItemReadListener<Object>, ItemWriteListener<Object> {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Long, StepMeters> stepMeters = new ConcurrentHashMap<>();
+    private final Map<Tags, AtomicLong> throughput = new ConcurrentHashMap<>();
+    private final ThreadLocal<StepMeters> current = new ThreadLocal<>();
+
+    public StepMetricsListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <I, O> ItemProcessor<I, O> timed(ItemProcessor<I, O> delegate) {
+        return item -> {
+            StepContext context = StepSynchronizationManager.getContext();
+            StepMeters meters = context == null ? null : stepMeters.get(context.getStepExecution().getId());
+            if (meters == null) {
+                return delegate.process(item);
+            }
+            long start = System.nanoTime();
+            try {
+                return delegate.process(item);
+            } finally {
+                meters.process().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        StepMeters meters = new StepMeters(tags(stepExecution));
+        stepMeters.put(stepExecution.getId(), meters);
+        current.set(meters);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        StepMeters meters = stepMeters.remove(stepExecution.getId());
+        current.remove();
+        if (meters == null) {
+            return null;
+        }
+
+        meters.count(stepExecution.getFilterCount(), "batch.step.items", "type", "filter");
+        meters.count(stepExecution.getReadSkipCount(), "batch.step.skips", "phase", "read");
+        meters.count(stepExecution.getProcessSkipCount(), "batch.step.skips", "phase", "process");
+        meters.count(stepExecution.getWriteSkipCount(), "batch.step.skips", "phase", "write");
+        meters.count(stepExecution.getRollbackCount(), "batch.step.rollbacks");
+
+        LocalDateTime start = stepExecution.getStartTime();
+        Duration elapsed = Duration.between(start == null ? LocalDateTime.now() : start, LocalDateTime.now());
+        Timer.builder("batch.step.duration")
+                .tags(meters.tags.and("status", stepExecution.getStatus().name()))
+                .register(meterRegistry)
+                .record(elapsed);
+        long itemsPerSecond = elapsed.toMillis() == 0 ? 0 : stepExecution.getWriteCount() * 1000L / elapsed.toMillis();
+        throughput.computeIfAbsent(meters.tags,
+                tags -> meterRegistry.gauge("batch.step.throughput", tags, new AtomicLong())).set(itemsPerSecond);
+
+        if (isPartition(stepExecution)) {
+            meters.removeTimers();
+        }
+
+        log.debug("Step {} wrote {} items in {} ms ({} items/sec)", stepExecution.getStepName(),
+                stepExecution.getWriteCount(), elapsed.toMillis(), itemsPerSecond);
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        StepMeters meters = current.get();
+        if (meters != null) {
+            meters.chunkStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        StepMeters meters = current.get();
+        if (meters != null && meters.chunkStart != 0) {
+            long now = System.nanoTime();
+            meters.chunk().record(now - meters.chunkStart, TimeUnit.NANOSECONDS);
+            if (meters.writeEnd != 0) {
+                meters.commit().record(now - meters.writeEnd, TimeUnit.NANOSECONDS);
+            }
+            meters.chunkStart = 0;
+            meters.writeEnd = 0;
+        }
+    }
+
+    @Override
+    public void beforeRead() {
+        StepMeters meters = current.get();
+        if (meters != null) {
+            meters.readStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterRead(Object item) {
+        StepMeters meters = current.get();
+        if (meters != null) {
+            meters.read().record(System.nanoTime() - meters.readStart, TimeUnit.NANOSECONDS);
+            meters.itemsRead().increment();
+        }
+    }
+
+    @Override
+    public void beforeWrite(Chunk<?> items) {
+        StepMeters meters = current.get();
+        if (meters != null) {
+            meters.writeStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterWrite(Chunk<?> items) {
+        StepMeters meters = current.get();
+        if (meters != null) {
+            meters.writeEnd = System.nanoTime();
+            meters.write().record(meters.writeEnd - meters.writeStart, TimeUnit.NANOSECONDS);
+            meters.itemsWritten().increment(items.size());
+        }
+    }
+
+    static boolean isPartition(StepExecution stepExecution) {
+        return stepExecution.getStepName().indexOf(':') >= 0;
+    }
+
+    static Tags tags(StepExecution stepExecution) {
+        String stepName = stepExecution.getStepName();
+        int separator = stepName.indexOf(':');
+        return Tags.of(
+                "job", stepExecution.getJobExecution().getJobInstance().getJobName(),
+                "step", separator < 0 ? stepName : stepName.substring(0, separator),
+                "partition", separator < 0 ? "none" : stepName.substring(separator + 1));
+    }
+
+    /**
+     * Item and chunk meters are registered on first use, so a step without items (masterStep)
+     * only publishes the step-level meters. Registration is idempotent, so the unsynchronized
+     * lazy init at worst looks the same meter up twice.
+     */
+    private final class StepMeters {
+
+        private final Tags tags;
+        private Timer read;
+        private Timer process;
+        private Timer write;
+        private Timer chunk;
+        private Timer commit;
+        private Counter itemsRead;
+        private Counter itemsWritten;
+        private long readStart;
+        private long writeStart;
+        private long writeEnd;
+        private long chunkStart;
+
+        StepMeters(Tags tags) {
+            this.tags = tags;
+        }
+
+        Timer read() {
+            if (read == null) {
+                read = timer("batch.item.read", Duration.ofNanos(1_000), Duration.ofSeconds(1));
+            }
+            return read;
+        }
+
+        Timer process() {
+            if (process == null) {
+                process = timer("batch.item.process", Duration.ofNanos(1_000), Duration.ofSeconds(10));
+            }
+            return process;
+        }
+
+        Timer write() {
+            if (write == null) {
+                write = timer("batch.chunk.write", Duration.ofNanos(100_000), Duration.ofSeconds(60));
+            }
+            return write;
+        }
+
+        Timer chunk() {
+            if (chunk == null) {
+                chunk = timer("batch.chunk.duration", Duration.ofNanos(100_000), Duration.ofSeconds(60));
+            }
+            return chunk;
+        }
+
+        Timer commit() {
+            if (commit == null) {
+                commit = timer("batch.chunk.commit", Duration.ofNanos(10_000), Duration.ofSeconds(10));
+            }
+            return commit;
+        }
+
+        Counter itemsRead() {
+            if (itemsRead == null) {
+                itemsRead = counter("batch.step.items", "type", "read");
+            }
+            return itemsRead;
+        }
+
+        Counter itemsWritten() {
+            if (itemsWritten == null) {
+                itemsWritten = counter("batch.step.items", "type", "write");
+            }
+            return itemsWritten;
+        }
+
+        void removeTimers() {
+            for (Timer timer : new Timer[] {read, process, write, chunk, commit}) {
+                if (timer != null) {
+                    meterRegistry.remove(timer);
+                }
+            }
+        }
+
+        void count(long amount, String name, String... extraTags) {
+            if (amount > 0) {
+                counter(name, extraTags).increment(amount);
+            }
+        }
+
+        private Counter counter(String name, String... extraTags) {
+            return Counter.builder(name).tags(tags.and(extraTags)).register(meterRegistry);
+        }
+
+        private Timer timer(String name, Duration min, Duration max) {
+            return Timer.builder(name)
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(min)
+                    .maximumExpectedValue(max)
+                    .register(meterRegistry);
+        }
+    }
+}
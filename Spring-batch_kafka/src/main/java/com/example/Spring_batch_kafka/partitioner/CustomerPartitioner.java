@@ -1,43 +1,115 @@
 package com.example.Spring_batch_kafka.partitioner;
 
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Splits the input CSV into byte ranges aligned to line starts. Each partition gets
+ * [startOffset, endOffset) so workers never overlap; the header line is excluded.
+ * A positive gridSize fixes the partition count; otherwise it is derived from the file
+ * size (batch.partition.target-bytes per partition, at most batch.partition.max-partitions).
+ */
 @Component
 @Slf4j
 public class CustomerPartitioner implements Partitioner {
 
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    @Value("${batch.csv.input-file}")
+    private String inputFile;
+
+    @Value("${batch.partition.target-bytes:65536}")
+    private long targetPartitionBytes;
+
+    @Value("${batch.partition.max-partitions:256}")
+    private int maxPartitions;
+
     @Override
     public Map<String, ExecutionContext> partition(int gridSize) {
+        Path path = Paths.get(inputFile);
         Map<String, ExecutionContext> result = new HashMap<>();
 
-        int totalRecords = getTotalRecordCount();
-        int recordsPerPartition = (totalRecords + gridSize - 1) / gridSize;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long dataStart = alignToLineStart(channel, 1);
+            long dataBytes = fileSize - dataStart;
+            int partitions = gridSize > 0 ? gridSize : partitionCount(dataBytes);
+            long bytesPerPartition = Math.max(1, dataBytes / partitions);
+
+            log.info("Partitioning {} ({} bytes) into {} byte ranges", path, fileSize, partitions);
 
-        log.info("Partitioning {} records into {} partitions", totalRecords, gridSize);
+            long start = dataStart;
+            for (int i = 0; i < partitions && start < fileSize; i++) {
+                long end = i == partitions - 1
+                        ? fileSize
+                        : alignToLineStart(channel, dataStart + (i + 1) * bytesPerPartition);
+                if (end <= start) {
+                    continue;
+                }
 
-        for (int i = 0; i < gridSize; i++) {
-            ExecutionContext context = new ExecutionContext();
-            context.putInt("minValue", i * recordsPerPartition);
-            context.putInt("maxValue", Math.min((i + 1) * recordsPerPartition, totalRecords));
-            context.putInt("partition", i);
-            context.putString("name", "partition-" + i);
+                ExecutionContext context = new ExecutionContext();
+                context.putString("inputFile", path.toString());
+                context.putLong("startOffset", start);
+                context.putLong("endOffset", end);
+                context.putInt("partition", i);
+                context.putString("name", "partition-" + i);
 
-            result.put("partition" + i, context);
-            log.debug("Created partition {} with range [{}, {})", i,
-                    context.getInt("minValue"), context.getInt("maxValue"));
+                result.put("partition" + i, context);
+                log.debug("Created partition {} with byte range [{}, {})", i, start, end);
+                start = end;
+            }
+        } catch (IOException e) {
+            throw new BatchProcessingException("Failed to partition input file " + path, e);
         }
 
         return result;
     }
 
-    private int getTotalRecordCount() {
-        // Count from file or database
-        return 1000;
+    private int partitionCount(long dataBytes) {
+        long bySize = Math.max(1, (dataBytes + targetPartitionBytes - 1) / targetPartitionBytes);
+        return (int) Math.min(bySize, maxPartitions);
+    }
+
+    /**
+     * Returns the offset of the first line that starts at or after {@code position}.
+     */
+    static long alignToLineStart(FileChannel channel, long position) throws IOException {
+        long size = channel.size();
+        if (position <= 0) {
+            return 0;
+        }
+        if (position >= size) {
+            return size;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long offset = position - 1;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
     }
 }
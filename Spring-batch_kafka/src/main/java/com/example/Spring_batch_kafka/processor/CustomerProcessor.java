@@ -4,6 +4,7 @@ package com.example.Spring_batch_kafka.processor;
 import com.example.Spring_batch_kafka.entity.Customer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
@@ -12,6 +13,9 @@ import java.util.Date;
 @Slf4j
 public class CustomerProcessor implements ItemProcessor<Customer, Customer> {
 
+    @Value("${batch.processor.simulated-latency-ms:100}")
+    private long simulatedLatencyMs;
+
     @Override
     public Customer process(Customer customer) throws Exception {
         log.debug("Processing customer: {} {}", customer.getFirstName(), customer.getLastName());
@@ -23,8 +27,14 @@ public class CustomerProcessor implements ItemProcessor<Customer, Customer> {
         customer.setProcessedBy(Thread.currentThread().getName());
 
         // Simulate processing time
-        Thread.sleep(100);
+        if (simulatedLatencyMs > 0) {
+            Thread.sleep(simulatedLatencyMs);
+        }
 
         return customer;
     }
+
+    public void setSimulatedLatencyMs(long simulatedLatencyMs) {
+        this.simulatedLatencyMs = simulatedLatencyMs;
+    }
 }
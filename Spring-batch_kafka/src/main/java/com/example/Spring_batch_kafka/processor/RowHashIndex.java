@@ -0,0 +1,83 @@
+package com.example.Spring_batch_kafka.processor;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from customer id to row hash on two primitive arrays, about 32 bytes
+ * per row instead of ~100 for a HashMap of boxed Longs. Filled once, then only read, so it
+ * can be shared by all partitions of a job without locking.
+ */
+public final class RowHashIndex {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] ids;
+    private long[] hashes;
+    private int size;
+
+    public RowHashIndex(long expectedSize) {
+        int capacity = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(16, expectedSize * 2)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void put(long id, long hash) {
+        if (id == EMPTY) {
+            throw new IllegalArgumentException("Unsupported id " + id);
+        }
+        if ((size + 1) * 2L > ids.length) {
+            grow();
+        }
+        int slot = slot(id);
+        if (ids[slot] == EMPTY) {
+            ids[slot] = id;
+            size++;
+        }
+        hashes[slot] = hash;
+    }
+
+    /**
+     * True if the index holds exactly this hash for the id.
+     */
+    public boolean matches(long id, long hash) {
+        int slot = slot(id);
+        return ids[slot] == id && hashes[slot] == hash;
+    }
+
+    private int slot(long id) {
+        int mask = ids.length - 1;
+        int slot = (int) mix(id) & mask;
+        while (ids[slot] != EMPTY && ids[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldIds = ids;
+        long[] oldHashes = hashes;
+        allocate(oldIds.length * 2);
+        size = 0;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != EMPTY) {
+                put(oldIds[i], oldHashes[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        hashes = new long[capacity];
+        Arrays.fill(ids, EMPTY);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.Spring_batch_kafka.processor;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.repository.CustomerRowHashRepository;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incremental imports. With batch.delta.enabled, every imported row's content hash is saved in
+ * customer_row_hashes, and rows whose hash has not changed since are dropped right after
+ * reading, before CustomerProcessor, Kafka or the database see them.
+ * <p>
+ * The index is loaded into a {@link RowHashIndex} when the first step of a job execution
+ * starts on this node, shared by its partitions, and dropped when the last one ends. Hashes
+ * are saved by the step's writer, in the chunk transaction, so a row only counts as imported
+ * once its chunk has committed. A run with the job parameter incremental=false imports every
+ * row and refreshes the index.
+ * <p>
+ * The number of rows skipped is saved in each step's execution context under
+ * {@value #UNCHANGED_KEY}.
+ */
+@Component
+@Slf4j
+public class UnchangedCustomerFilter implements ItemProcessor<Customer, Customer>, StepExecutionListener {
+
+    public static final String UNCHANGED_KEY = "delta.unchanged";
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final CustomerRowHashRepository customerRowHashRepository;
+    private final boolean enabled;
+    private final Map<Long, Run> runs = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> unchanged = new ConcurrentHashMap<>();
+
+    public UnchangedCustomerFilter(CustomerRowHashRepository customerRowHashRepository,
+                                   @Value("${batch.delta.enabled:false}") boolean enabled) {
+        this.customerRowHashRepository = customerRowHashRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Runs this filter before the delegate. Unchanged rows are dropped on the chunk thread and
+     * counted as filtered, even when the delegate processes concurrently.
+     */
+    public <O> ItemProcessor<Customer, O> before(ItemProcessor<Customer, O> delegate) {
+        return customer -> {
+            Customer changed = process(customer);
+            return changed == null ? null : delegate.process(changed);
+        };
+    }
+
+    /**
+     * Saves the hashes of the written customers after the delegate has written them.
+     */
+    public <T extends Customer> ItemWriter<T> recording(ItemWriter<T> delegate) {
+        return chunk -> {
+            delegate.write(chunk);
+            record(chunk);
+        };
+    }
+
+    @Override
+    public Customer process(Customer customer) {
+        Run run = currentRun();
+        if (run == null) {
+            return customer;
+        }
+        long hash = hash(customer);
+        if (run.skipUnchanged() && run.index().matches(customer.getId(), hash)) {
+            unchanged.computeIfAbsent(currentStepId(), id -> new AtomicLong()).incrementAndGet();
+            return null;
+        }
+        run.pending().put(customer.getId(), hash);
+        return customer;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        if (!enabled) {
+            return;
+        }
+        boolean skipUnchanged = !"false".equalsIgnoreCase(stepExecution.getJobParameters().getString("incremental"));
+        runs.compute(stepExecution.getJobExecutionId(), (id, run) -> {
+            Run current = run != null ? run : load(skipUnchanged);
+            current.activeSteps().incrementAndGet();
+            return current;
+        });
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        AtomicLong skipped = unchanged.remove(stepExecution.getId());
+        runs.computeIfPresent(stepExecution.getJobExecutionId(),
+                (id, current) -> current.activeSteps().decrementAndGet() == 0 ? null : current);
+        if (enabled) {
+            long count = skipped == null ? 0 : skipped.get();
+            stepExecution.getExecutionContext().putLong(UNCHANGED_KEY, count);
+            log.info("{} skipped {} unchanged customers", stepExecution.getStepName(), count);
+        }
+        return null;
+    }
+
+    static long hash(Customer customer) {
+        Hasher hasher = HASH.newHasher();
+        put(hasher, customer.getFirstName());
+        put(hasher, customer.getLastName());
+        put(hasher, customer.getEmail());
+        put(hasher, customer.getGender());
+        put(hasher, customer.getContactNo());
+        put(hasher, customer.getCountry());
+        put(hasher, customer.getDob());
+        return hasher.hash().asLong();
+    }
+
+    private void record(Chunk<? extends Customer> chunk) {
+        Run run = currentRun();
+        if (run == null || chunk.isEmpty()) {
+            return;
+        }
+        long[] ids = new long[chunk.size()];
+        long[] hashes = new long[chunk.size()];
+        int size = 0;
+        for (Customer customer : chunk) {
+            Long hash = run.pending().remove(customer.getId());
+            if (hash != null) {
+                ids[size] = customer.getId();
+                hashes[size++] = hash;
+            }
+        }
+        customerRowHashRepository.save(ids, hashes, size);
+    }
+
+    private Run load(boolean skipUnchanged) {
+        if (!skipUnchanged) {
+            return new Run(new RowHashIndex(0), false);
+        }
+        long start = System.currentTimeMillis();
+        RowHashIndex index = new RowHashIndex(customerRowHashRepository.count());
+        customerRowHashRepository.forEach(index::put);
+        log.info("Loaded {} row hashes in {} ms", index.size(), System.currentTimeMillis() - start);
+        return new Run(index, true);
+    }
+
+    private Run currentRun() {
+        StepContext context = StepSynchronizationManager.getContext();
+        return context == null ? null : runs.get(context.getStepExecution().getJobExecutionId());
+    }
+
+    private static long currentStepId() {
+        return StepSynchronizationManager.getContext().getStepExecution().getId();
+    }
+
+    private static void put(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putByte((byte) 0);
+        } else {
+            hasher.putByte((byte) 1).putString(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Index of one job execution, the hashes of rows read but not yet written, and the number
+     * of its steps running on this node.
+     */
+    private record Run(RowHashIndex index, boolean skipUnchanged, Map<Long, Long> pending, AtomicInteger activeSteps) {
+
+        Run(RowHashIndex index, boolean skipUnchanged) {
+            this(index, skipUnchanged, new ConcurrentHashMap<>(), new AtomicInteger());
+        }
+    }
+}
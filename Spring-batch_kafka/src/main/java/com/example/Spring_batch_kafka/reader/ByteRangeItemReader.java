@@ -0,0 +1,140 @@
+package com.example.Spring_batch_kafka.reader;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads the lines that start inside [startOffset, endOffset) of a file. Offsets must be
+ * aligned to line starts (see {@code CustomerPartitioner}). The byte position is saved on
+ * every commit so a restart seeks straight back to it instead of re-reading the range.
+ */
+public class ByteRangeItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    private static final String POSITION_KEY = "position";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final long startOffset;
+    private final long endOffset;
+    private final LineMapper<T> lineMapper;
+
+    private FileChannel channel;
+    private InputStream input;
+    private long position;
+    private boolean restoredPosition;
+    private byte[] lineBuffer = new byte[256];
+
+    public ByteRangeItemReader(Path file, long startOffset, long endOffset, LineMapper<T> lineMapper) {
+        this.file = file;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.lineMapper = lineMapper;
+        this.position = startOffset;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (isSaveState() && executionContext.containsKey(getExecutionContextKey(POSITION_KEY))) {
+            position = executionContext.getLong(getExecutionContextKey(POSITION_KEY));
+            restoredPosition = true;
+        }
+        super.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState()) {
+            executionContext.putLong(getExecutionContextKey(POSITION_KEY), position);
+        }
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        channel.position(position);
+        input = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        while (position < endOffset) {
+            int length = readLine();
+            if (length < 0) {
+                return null;
+            }
+            if (length > 0) {
+                String line = new String(lineBuffer, 0, length, StandardCharsets.UTF_8);
+                return lineMapper.mapLine(line, getCurrentItemCount());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        if (!restoredPosition) {
+            super.jumpToItem(itemIndex);
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (input != null) {
+            input.close();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        input = null;
+        channel = null;
+        position = startOffset;
+        restoredPosition = false;
+    }
+
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    private int readLine() throws IOException {
+        int length = 0;
+        int b;
+        while ((b = input.read()) != -1) {
+            position++;
+            if (b == '\n') {
+                break;
+            }
+            if (length == lineBuffer.length) {
+                lineBuffer = Arrays.copyOf(lineBuffer, length * 2);
+            }
+            lineBuffer[length++] = (byte) b;
+        }
+        if (b == -1 && length == 0) {
+            return -1;
+        }
+        if (length > 0 && lineBuffer[length - 1] == '\r') {
+            length--;
+        }
+        return length;
+    }
+}
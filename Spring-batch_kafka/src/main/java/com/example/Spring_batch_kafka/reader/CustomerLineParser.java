@@ -0,0 +1,119 @@
+package com.example.Spring_batch_kafka.reader;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.file.LineMapper;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps a comma-delimited customer line straight onto {@link Customer} without a
+ * {@code FieldSet} or bean wrapper. Columns are positional in the customers.csv order:
+ * id, firstName, lastName, email, gender, contactNo, country, dob. Missing trailing
+ * columns map to null, double-quoted fields are unquoted.
+ */
+public class CustomerLineParser implements LineMapper<Customer> {
+
+    private static final byte DELIMITER = ',';
+    private static final byte QUOTE = '"';
+
+    @Override
+    public Customer mapLine(String line, int lineNumber) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parse(bytes, 0, bytes.length, lineNumber);
+    }
+
+    public Customer parse(byte[] line, int offset, int length, int lineNumber) {
+        Customer customer = new Customer();
+        int end = offset + length;
+        int pos = offset;
+        int column = 0;
+
+        while (pos <= end && column < 8) {
+            int fieldEnd;
+            String value;
+            if (pos < end && line[pos] == QUOTE) {
+                StringBuilder quoted = new StringBuilder();
+                fieldEnd = readQuoted(line, pos, end, quoted, lineNumber);
+                value = quoted.toString();
+            } else {
+                fieldEnd = indexOf(line, pos, end);
+                value = column == 0 ? null : new String(line, pos, fieldEnd - pos, StandardCharsets.UTF_8);
+            }
+
+            switch (column) {
+                case 0 -> customer.setId(value != null ? parseId(value, lineNumber) : parseId(line, pos, fieldEnd, lineNumber));
+                case 1 -> customer.setFirstName(value);
+                case 2 -> customer.setLastName(value);
+                case 3 -> customer.setEmail(value);
+                case 4 -> customer.setGender(value);
+                case 5 -> customer.setContactNo(value);
+                case 6 -> customer.setCountry(value);
+                case 7 -> customer.setDob(value);
+                default -> { }
+            }
+
+            column++;
+            pos = fieldEnd + 1;
+        }
+
+        return customer;
+    }
+
+    private static int indexOf(byte[] line, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (line[i] == DELIMITER) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int readQuoted(byte[] line, int pos, int end, StringBuilder out, int lineNumber) {
+        int start = pos + 1;
+        int i = start;
+        while (i < end) {
+            if (line[i] == QUOTE) {
+                if (i + 1 < end && line[i + 1] == QUOTE) {
+                    out.append(new String(line, start, i + 1 - start, StandardCharsets.UTF_8));
+                    i += 2;
+                    start = i;
+                    continue;
+                }
+                out.append(new String(line, start, i - start, StandardCharsets.UTF_8));
+                return indexOf(line, i + 1, end);
+            }
+            i++;
+        }
+        throw new FlatFileParseException("Unterminated quoted field at line " + lineNumber,
+                new String(line, pos, end - pos, StandardCharsets.UTF_8), lineNumber);
+    }
+
+    private static long parseId(byte[] line, int from, int to, int lineNumber) {
+        if (from >= to) {
+            throw invalidId(new String(line, from, 0, StandardCharsets.UTF_8), lineNumber);
+        }
+        long id = 0;
+        for (int i = from; i < to; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidId(new String(line, from, to - from, StandardCharsets.UTF_8), lineNumber);
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+
+    private static long parseId(String value, int lineNumber) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw invalidId(value, lineNumber);
+        }
+    }
+
+    private static FlatFileParseException invalidId(String value, int lineNumber) {
+        return new FlatFileParseException("Invalid customer id '" + value + "' at line " + lineNumber,
+                value, lineNumber);
+    }
+}
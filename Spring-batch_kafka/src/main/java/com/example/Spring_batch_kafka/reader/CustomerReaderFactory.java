@@ -0,0 +1,72 @@
+package com.example.Spring_batch_kafka.reader;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.batch.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+
+/**
+ * Builds the customer CSV readers for the batch steps. {@code batch.csv.reader=mapped}
+ * (default) uses the memory-mapped reader, {@code flat} keeps the tokenizer/bean-wrapper path.
+ */
+@Component
+public class CustomerReaderFactory {
+
+    @Value("${batch.csv.input-file}")
+    private String inputFile;
+
+    @Value("${batch.csv.reader:mapped}")
+    private String readerType;
+
+    public AbstractItemCountingItemStreamItemReader<Customer> fileReader(String name) {
+        AbstractItemCountingItemStreamItemReader<Customer> reader;
+        if (isFlat()) {
+            FlatFileItemReader<Customer> flatReader = new FlatFileItemReader<>();
+            flatReader.setResource(new FileSystemResource(inputFile));
+            flatReader.setLinesToSkip(1);
+            flatReader.setLineMapper(beanWrapperLineMapper());
+            reader = flatReader;
+        } else {
+            reader = new MappedCustomerItemReader(Paths.get(inputFile));
+        }
+        reader.setName(name);
+        return reader;
+    }
+
+    public AbstractItemCountingItemStreamItemReader<Customer> rangeReader(
+            String name, String file, long startOffset, long endOffset) {
+        AbstractItemCountingItemStreamItemReader<Customer> reader = isFlat()
+                ? new ByteRangeItemReader<>(Paths.get(file), startOffset, endOffset, beanWrapperLineMapper())
+                : new MappedCustomerItemReader(Paths.get(file), startOffset, endOffset);
+        reader.setName(name);
+        return reader;
+    }
+
+    public static LineMapper<Customer> beanWrapperLineMapper() {
+        DefaultLineMapper<Customer> lineMapper = new DefaultLineMapper<>();
+
+        DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
+        lineTokenizer.setDelimiter(",");
+        lineTokenizer.setStrict(false);
+        lineTokenizer.setNames("id", "firstName", "lastName", "email", "gender", "contactNo", "country", "dob");
+
+        BeanWrapperFieldSetMapper<Customer> fieldSetMapper = new BeanWrapperFieldSetMapper<>();
+        fieldSetMapper.setTargetType(Customer.class);
+
+        lineMapper.setLineTokenizer(lineTokenizer);
+        lineMapper.setFieldSetMapper(fieldSetMapper);
+        return lineMapper;
+    }
+
+    private boolean isFlat() {
+        return "flat".equalsIgnoreCase(readerType);
+    }
+}
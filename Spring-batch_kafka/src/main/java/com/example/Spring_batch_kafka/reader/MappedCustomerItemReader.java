@@ -0,0 +1,174 @@
+package com.example.Spring_batch_kafka.reader;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads customers from a memory-mapped CSV without going through a {@code LineMapper}.
+ * The file is mapped in windows so multi-GB inputs work; a line crossing a window
+ * boundary triggers a remap starting at that line. Reads [startOffset, endOffset),
+ * or the whole file after its header when constructed with just a path.
+ */
+public class MappedCustomerItemReader extends AbstractItemCountingItemStreamItemReader<Customer> {
+
+    private static final String POSITION_KEY = "position";
+    private static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final Path file;
+    private final long startOffset;
+    private final long requestedEndOffset;
+    private final boolean skipHeader;
+    private final CustomerLineParser parser = new CustomerLineParser();
+
+    private long windowSize = DEFAULT_WINDOW_SIZE;
+    private FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long endOffset;
+    private long position;
+    private long nextLineStart;
+    private boolean restoredPosition;
+    private byte[] lineBuffer = new byte[256];
+
+    public MappedCustomerItemReader(Path file) {
+        this(file, 0, Long.MAX_VALUE, true);
+    }
+
+    public MappedCustomerItemReader(Path file, long startOffset, long endOffset) {
+        this(file, startOffset, endOffset, false);
+    }
+
+    private MappedCustomerItemReader(Path file, long startOffset, long endOffset, boolean skipHeader) {
+        this.file = file;
+        this.startOffset = startOffset;
+        this.requestedEndOffset = endOffset;
+        this.skipHeader = skipHeader;
+        this.position = startOffset;
+    }
+
+    public void setWindowSize(long windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (isSaveState() && executionContext.containsKey(getExecutionContextKey(POSITION_KEY))) {
+            position = executionContext.getLong(getExecutionContextKey(POSITION_KEY));
+            restoredPosition = true;
+        }
+        super.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState()) {
+            executionContext.putLong(getExecutionContextKey(POSITION_KEY), position);
+        }
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        endOffset = Math.min(requestedEndOffset, channel.size());
+        if (skipHeader && !restoredPosition && position == 0 && endOffset > 0) {
+            nextLineLength();
+            position = nextLineStart;
+        }
+    }
+
+    @Override
+    protected Customer doRead() throws Exception {
+        while (position < endOffset) {
+            int length = nextLineLength();
+            int lineStart = (int) (position - windowStart);
+            position = nextLineStart;
+
+            if (length > 0 && window.get(lineStart + length - 1) == '\r') {
+                length--;
+            }
+            if (length == 0) {
+                continue;
+            }
+            if (length > lineBuffer.length) {
+                lineBuffer = new byte[Math.max(length, lineBuffer.length * 2)];
+            }
+            window.get(lineStart, lineBuffer, 0, length);
+            return parser.parse(lineBuffer, 0, length, getCurrentItemCount());
+        }
+        return null;
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        if (!restoredPosition) {
+            super.jumpToItem(itemIndex);
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (channel != null) {
+            channel.close();
+        }
+        channel = null;
+        window = null;
+        position = startOffset;
+        restoredPosition = false;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Scans from the current position to the next newline, remapping the window when the
+     * line is not fully inside it. Returns the line length without the newline and records
+     * where the following line starts.
+     */
+    private int nextLineLength() throws Exception {
+        long size = windowSize;
+        while (true) {
+            if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+                map(position, size);
+            }
+            int from = (int) (position - windowStart);
+            int limit = window.limit();
+            for (int i = from; i < limit; i++) {
+                if (window.get(i) == '\n') {
+                    nextLineStart = windowStart + i + 1;
+                    return i - from;
+                }
+            }
+            if (windowStart + limit >= endOffset) {
+                nextLineStart = endOffset;
+                return limit - from;
+            }
+            if (from == 0) {
+                size *= 2;
+            }
+            map(position, size);
+        }
+    }
+
+    private void map(long start, long size) throws Exception {
+        long length = Math.min(Math.min(size, Integer.MAX_VALUE), endOffset - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        windowStart = start;
+    }
+}
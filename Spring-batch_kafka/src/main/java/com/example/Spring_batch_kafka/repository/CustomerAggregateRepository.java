@@ -0,0 +1,156 @@
+package com.example.Spring_batch_kafka.repository;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.entity.CustomerAggregate.Bucket;
+import com.example.Spring_batch_kafka.writer.SqlDialect;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static com.example.Spring_batch_kafka.entity.CustomerAggregate.COUNTRY;
+import static com.example.Spring_batch_kafka.entity.CustomerAggregate.GENDER;
+import static com.example.Spring_batch_kafka.entity.CustomerAggregate.PROCESSED;
+import static com.example.Spring_batch_kafka.entity.CustomerAggregate.TOTAL;
+
+/**
+ * JDBC access to customer_aggregates. Increments are relative upserts, so concurrent writers
+ * never read a counter before writing it. Deltas are applied in {@link Bucket} order, so two
+ * transactions always lock shared rows in the same order and cannot deadlock.
+ */
+@Repository
+public class CustomerAggregateRepository {
+
+    static final String TABLE = "customer_aggregates";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private volatile SqlDialect dialect;
+
+    public CustomerAggregateRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void increment(int shard, SortedMap<Bucket, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Bucket, Long>> rows = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.getJdbcTemplate().batchUpdate(incrementSql(dialect()), rows, rows.size(), (ps, delta) -> {
+            ps.setString(1, delta.getKey().dimension());
+            ps.setString(2, delta.getKey().value());
+            ps.setInt(3, shard);
+            ps.setLong(4, delta.getValue());
+        });
+    }
+
+    public Map<Bucket, Long> loadTotals() {
+        Map<Bucket, Long> totals = new HashMap<>();
+        jdbcTemplate.getJdbcTemplate().query(
+                "SELECT dimension, dim_value, SUM(customer_count) AS total FROM " + TABLE
+                        + " GROUP BY dimension, dim_value",
+                rs -> {
+                    totals.put(new Bucket(rs.getString("dimension"), rs.getString("dim_value")), rs.getLong("total"));
+                });
+        return totals;
+    }
+
+    /**
+     * The aggregated columns of customers that already exist, for writes that may overwrite them.
+     * A plain read: no rows are locked.
+     */
+    public Map<Long, Customer> findExisting(Collection<Long> ids) {
+        Map<Long, Customer> existing = new HashMap<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        jdbcTemplate.query("SELECT id, country, gender, processed_at FROM customers WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", new ArrayList<>(ids)), rs -> {
+                    Timestamp processedAt = rs.getTimestamp("processed_at");
+                    existing.put(rs.getLong("id"), Customer.builder()
+                            .id(rs.getLong("id"))
+                            .country(rs.getString("country"))
+                            .gender(rs.getString("gender"))
+                            .processedAt(processedAt)
+                            .build());
+                });
+        return existing;
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.getJdbcTemplate()
+                .queryForList("SELECT 1 FROM " + TABLE + " LIMIT 1", Integer.class).isEmpty();
+    }
+
+    /**
+     * Builds the aggregates from customers in one pass, into an empty table.
+     */
+    public void rebuildFromCustomers() {
+        increment(0, new TreeMap<>(countCustomers()));
+    }
+
+    /**
+     * What customers counts minus what the table holds, per bucket, without the zeros. Both are
+     * read in one repeatable-read snapshot and without locks. Writers change customers and
+     * customer_aggregates in the same transaction, so the difference is drift only, and adding
+     * it with {@link #increment} stays correct while writes go on.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SortedMap<Bucket, Long> findDrift() {
+        SortedMap<Bucket, Long> drift = new TreeMap<>(countCustomers());
+        loadTotals().forEach((bucket, total) -> drift.merge(bucket, -total, Long::sum));
+        drift.values().removeIf(delta -> delta == 0);
+        return drift;
+    }
+
+    private Map<Bucket, Long> countCustomers() {
+        Map<Bucket, Long> counts = new HashMap<>();
+        counts.put(new Bucket(TOTAL, null), 0L);
+        counts.put(new Bucket(PROCESSED, null), 0L);
+        jdbcTemplate.getJdbcTemplate().query(
+                "SELECT country, gender, CASE WHEN processed_at IS NULL THEN 0 ELSE 1 END AS processed,"
+                        + " COUNT(*) AS customers FROM customers"
+                        + " GROUP BY country, gender, CASE WHEN processed_at IS NULL THEN 0 ELSE 1 END",
+                rs -> {
+                    long customers = rs.getLong("customers");
+                    counts.merge(new Bucket(TOTAL, null), customers, Long::sum);
+                    if (rs.getInt("processed") == 1) {
+                        counts.merge(new Bucket(PROCESSED, null), customers, Long::sum);
+                    }
+                    counts.merge(new Bucket(COUNTRY, rs.getString("country")), customers, Long::sum);
+                    counts.merge(new Bucket(GENDER, rs.getString("gender")), customers, Long::sum);
+                });
+        return counts;
+    }
+
+    private SqlDialect dialect() {
+        if (dialect == null) {
+            dialect = SqlDialect.detect(jdbcTemplate.getJdbcTemplate().getDataSource());
+        }
+        return dialect;
+    }
+
+    static String incrementSql(SqlDialect dialect) {
+        String insert = "INSERT INTO " + TABLE + " (dimension, dim_value, shard, customer_count) VALUES (?, ?, ?, ?)";
+        return switch (dialect) {
+            case MYSQL -> insert + " ON DUPLICATE KEY UPDATE customer_count = customer_count + VALUES(customer_count)";
+            case POSTGRES -> insert + " ON CONFLICT (dimension, dim_value, shard) DO UPDATE"
+                    + " SET customer_count = " + TABLE + ".customer_count + EXCLUDED.customer_count";
+            case H2, OTHER -> "MERGE INTO " + TABLE + " t USING (VALUES (CAST(? AS VARCHAR(16)),"
+                    + " CAST(? AS VARCHAR(255)), CAST(? AS INT), CAST(? AS BIGINT))) s (dimension, dim_value, shard, delta)"
+                    + " ON t.dimension = s.dimension AND t.dim_value = s.dim_value AND t.shard = s.shard"
+                    + " WHEN MATCHED THEN UPDATE SET customer_count = t.customer_count + s.delta"
+                    + " WHEN NOT MATCHED THEN INSERT (dimension, dim_value, shard, customer_count)"
+                    + " VALUES (s.dimension, s.dim_value, s.shard, s.delta)";
+        };
+    }
+}
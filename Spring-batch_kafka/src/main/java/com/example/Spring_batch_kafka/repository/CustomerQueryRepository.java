@@ -0,0 +1,110 @@
+package com.example.Spring_batch_kafka.repository;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.writer.SqlDialect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keyset reads over the customers table. Every query seeks on the primary key
+ * ({@code id > :afterId ORDER BY id}), so page 10,000 costs the same as page 1 and no
+ * COUNT(*) is ever issued.
+ * <p>
+ * {@link #stream} walks the result with a forward-only, read-only cursor and hands rows over
+ * one at a time, so memory does not grow with the result size. MySQL only streams with a fetch
+ * size of Integer.MIN_VALUE; PostgreSQL only uses the fetch size inside a transaction, so the
+ * query runs in a read-only one.
+ */
+@Repository
+public class CustomerQueryRepository {
+
+    private static final String COLUMNS =
+            "id, first_name, last_name, email, gender, contact_no, country, dob, processed_at, processed_by";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private volatile SqlDialect dialect;
+
+    public CustomerQueryRepository(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${customers.export.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    public List<Customer> findAfter(long afterId, String country, int limit) {
+        List<Customer> customers = new ArrayList<>(limit);
+        jdbcTemplate.query(select(country) + " LIMIT ?", ps -> {
+            int index = bind(ps, afterId, country);
+            ps.setInt(index, limit);
+        }, (RowCallbackHandler) rs -> customers.add(mapCustomer(rs)));
+        return customers;
+    }
+
+    public void stream(long afterId, String country, Consumer<Customer> consumer) {
+        String sql = select(country);
+        PreparedStatementCreator statement = connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(dialect() == SqlDialect.MYSQL ? Integer.MIN_VALUE : fetchSize);
+            bind(ps, afterId, country);
+            return ps;
+        };
+        readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query(statement, (RowCallbackHandler) rs -> consumer.accept(mapCustomer(rs))));
+    }
+
+    private SqlDialect dialect() {
+        if (dialect == null) {
+            dialect = SqlDialect.detect(jdbcTemplate.getDataSource());
+        }
+        return dialect;
+    }
+
+    private static String select(String country) {
+        return "SELECT " + COLUMNS + " FROM customers WHERE id > ?"
+                + (country != null ? " AND country = ?" : "")
+                + " ORDER BY id";
+    }
+
+    private static int bind(PreparedStatement ps, long afterId, String country) throws SQLException {
+        ps.setLong(1, afterId);
+        if (country == null) {
+            return 2;
+        }
+        ps.setString(2, country);
+        return 3;
+    }
+
+    private static Customer mapCustomer(ResultSet rs) throws SQLException {
+        Timestamp processedAt = rs.getTimestamp("processed_at");
+        return Customer.builder()
+                .id(rs.getLong("id"))
+                .firstName(rs.getString("first_name"))
+                .lastName(rs.getString("last_name"))
+                .email(rs.getString("email"))
+                .gender(rs.getString("gender"))
+                .contactNo(rs.getString("contact_no"))
+                .country(rs.getString("country"))
+                .dob(rs.getString("dob"))
+                .processedAt(processedAt)
+                .processedBy(rs.getString("processed_by"))
+                .build();
+    }
+}
@@ -1,13 +1,23 @@
 package com.example.Spring_batch_kafka.repository;
 
 import com.example.Spring_batch_kafka.entity.Customer;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     List<Customer> findByCountry(String country);
     Long countByProcessedAtIsNotNull();
-}
\ No newline at end of file
+
+    /**
+     * Locks the row until the transaction ends, so concurrent updates of the same customer
+     * each see the row the other wrote.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Customer> findForUpdateById(Long id);
+}
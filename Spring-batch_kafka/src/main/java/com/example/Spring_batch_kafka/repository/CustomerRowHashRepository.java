@@ -0,0 +1,84 @@
+package com.example.Spring_batch_kafka.repository;
+
+import com.example.Spring_batch_kafka.writer.SqlDialect;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * JDBC access to customer_row_hashes. Rows are only ever read all at once, into a
+ * primitive index, and written as upserts per chunk.
+ */
+@Repository
+public class CustomerRowHashRepository {
+
+    static final String TABLE = "customer_row_hashes";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile SqlDialect dialect;
+
+    public CustomerRowHashRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public interface HashConsumer {
+        void accept(long id, long hash);
+    }
+
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    public void forEach(HashConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT id, row_hash FROM " + TABLE);
+            ps.setFetchSize(dialect() == SqlDialect.MYSQL ? Integer.MIN_VALUE : 10_000);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2)));
+    }
+
+    /**
+     * Saves the first {@code size} (id, hash) pairs.
+     */
+    public void save(long[] ids, long[] hashes, int size) {
+        if (size == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(upsertSql(dialect()), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, ids[i]);
+                ps.setLong(2, hashes[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return size;
+            }
+        });
+    }
+
+    private SqlDialect dialect() {
+        if (dialect == null) {
+            dialect = SqlDialect.detect(jdbcTemplate.getDataSource());
+        }
+        return dialect;
+    }
+
+    static String upsertSql(SqlDialect dialect) {
+        String insert = "INSERT INTO " + TABLE + " (id, row_hash) VALUES (?, ?)";
+        return switch (dialect) {
+            case MYSQL -> insert + " ON DUPLICATE KEY UPDATE row_hash = VALUES(row_hash)";
+            case POSTGRES -> insert + " ON CONFLICT (id) DO UPDATE SET row_hash = EXCLUDED.row_hash";
+            case H2, OTHER -> "MERGE INTO " + TABLE + " t USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT)))"
+                    + " s (id, row_hash) ON t.id = s.id"
+                    + " WHEN MATCHED THEN UPDATE SET row_hash = s.row_hash"
+                    + " WHEN NOT MATCHED THEN INSERT (id, row_hash) VALUES (s.id, s.row_hash)";
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.Spring_batch_kafka.repository;
+
+import com.example.Spring_batch_kafka.dto.JobExecutionSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based reads over the Spring Batch metadata tables. The JobExplorer is not used here
+ * because it loads every instance and every execution one by one.
+ * <p>
+ * A page costs two queries. The first fetches the executions, newest first, with a keyset
+ * on JOB_EXECUTION_ID: pass the last id of the previous page as {@code beforeId}. The second
+ * aggregates their step counts with one grouped query. Worker steps of a partitioned step
+ * (named "step:partitionN") are skipped, because their counts are already rolled up into
+ * the manager step.
+ */
+@Repository
+public class JobExecutionQueryRepository {
+
+    private static final String SUMMARY_COLUMNS =
+            "e.JOB_EXECUTION_ID, i.JOB_NAME, e.STATUS, e.START_TIME, e.END_TIME";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String prefix;
+
+    public JobExecutionQueryRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                       @Value("${spring.batch.jdbc.table-prefix:BATCH_}") String prefix) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.prefix = prefix;
+    }
+
+    public List<JobExecutionSummary> findRecent(Long beforeId, int count) {
+        String sql = "SELECT " + SUMMARY_COLUMNS + from()
+                + (beforeId != null ? " WHERE e.JOB_EXECUTION_ID < :beforeId" : "")
+                + " ORDER BY e.JOB_EXECUTION_ID DESC LIMIT :count";
+        return withStepTotals(jdbcTemplate.query(sql,
+                new MapSqlParameterSource("beforeId", beforeId).addValue("count", count), this::mapSummary));
+    }
+
+    public List<JobExecutionSummary> findByJobName(String jobName, Long beforeId, int count) {
+        String sql = "SELECT " + SUMMARY_COLUMNS + from()
+                + " WHERE i.JOB_NAME = :jobName"
+                + (beforeId != null ? " AND e.JOB_EXECUTION_ID < :beforeId" : "")
+                + " ORDER BY e.JOB_EXECUTION_ID DESC LIMIT :count";
+        MapSqlParameterSource params = new MapSqlParameterSource("jobName", jobName)
+                .addValue("beforeId", beforeId)
+                .addValue("count", count);
+        return withStepTotals(jdbcTemplate.query(sql, params, this::mapSummary));
+    }
+
+    public Optional<JobExecutionSummary> findById(long executionId) {
+        String sql = "SELECT " + SUMMARY_COLUMNS + from() + " WHERE e.JOB_EXECUTION_ID = :id";
+        List<JobExecutionSummary> found = withStepTotals(
+                jdbcTemplate.query(sql, new MapSqlParameterSource("id", executionId), this::mapSummary));
+        return found.stream().findFirst();
+    }
+
+    public List<JobExecutionSummary> findRunning() {
+        String sql = "SELECT " + SUMMARY_COLUMNS + from()
+                + " WHERE e.STATUS IN ('STARTING', 'STARTED', 'STOPPING')"
+                + " ORDER BY e.JOB_EXECUTION_ID DESC";
+        return withStepTotals(jdbcTemplate.query(sql, this::mapSummary));
+    }
+
+    public long countJobNames() {
+        Long count = jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT COUNT(DISTINCT JOB_NAME) FROM " + prefix + "JOB_INSTANCE", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Execution count per batch status, across the whole history of the job.
+     */
+    public Map<String, Long> countByStatus(String jobName) {
+        String sql = "SELECT e.STATUS, COUNT(*) AS EXECUTIONS" + from()
+                + " WHERE i.JOB_NAME = :jobName GROUP BY e.STATUS";
+        Map<String, Long> counts = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, new MapSqlParameterSource("jobName", jobName),
+                rs -> {
+                    counts.put(rs.getString("STATUS"), rs.getLong("EXECUTIONS"));
+                });
+        return counts;
+    }
+
+    private List<JobExecutionSummary> withStepTotals(List<JobExecutionSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        Map<Long, JobExecutionSummary> byId = summaries.stream()
+                .collect(Collectors.toMap(JobExecutionSummary::getExecutionId, Function.identity()));
+        String sql = "SELECT JOB_EXECUTION_ID, SUM(READ_COUNT) AS READ_COUNT, SUM(WRITE_COUNT) AS WRITE_COUNT,"
+                + " SUM(READ_SKIP_COUNT + PROCESS_SKIP_COUNT + WRITE_SKIP_COUNT) AS SKIP_COUNT,"
+                + " SUM(CASE WHEN STATUS = 'FAILED' THEN 1 ELSE 0 END) AS FAILED_STEPS"
+                + " FROM " + prefix + "STEP_EXECUTION"
+                + " WHERE JOB_EXECUTION_ID IN (:ids) AND STEP_NAME NOT LIKE '%:%'"
+                + " GROUP BY JOB_EXECUTION_ID";
+        jdbcTemplate.query(sql, new MapSqlParameterSource("ids", new ArrayList<>(byId.keySet())), rs -> {
+            JobExecutionSummary summary = byId.get(rs.getLong("JOB_EXECUTION_ID"));
+            summary.setReadCount(rs.getLong("READ_COUNT"));
+            summary.setWriteCount(rs.getLong("WRITE_COUNT"));
+            summary.setFailureCount(rs.getLong("SKIP_COUNT") + rs.getLong("FAILED_STEPS"));
+        });
+        return summaries;
+    }
+
+    private JobExecutionSummary mapSummary(ResultSet rs, int rowNum) throws SQLException {
+        LocalDateTime start = toLocalDateTime(rs.getTimestamp("START_TIME"));
+        LocalDateTime end = toLocalDateTime(rs.getTimestamp("END_TIME"));
+        return JobExecutionSummary.builder()
+                .executionId(rs.getLong("JOB_EXECUTION_ID"))
+                .jobName(rs.getString("JOB_NAME"))
+                .status(rs.getString("STATUS"))
+                .startTime(start)
+                .endTime(end)
+                .duration(start == null ? null
+                        : Duration.between(start, end != null ? end : LocalDateTime.now()).toMillis())
+                .readCount(0L)
+                .writeCount(0L)
+                .failureCount(0L)
+                .build();
+    }
+
+    private String from() {
+        return " FROM " + prefix + "JOB_EXECUTION e"
+                + " JOIN " + prefix + "JOB_INSTANCE i ON i.JOB_INSTANCE_ID = e.JOB_INSTANCE_ID";
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
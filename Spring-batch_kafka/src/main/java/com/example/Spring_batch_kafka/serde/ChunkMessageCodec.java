@@ -0,0 +1,137 @@
+package com.example.Spring_batch_kafka.serde;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.serde.CustomerBinaryCodec.Reader;
+import com.example.Spring_batch_kafka.serde.CustomerBinaryCodec.Writer;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.integration.chunk.ChunkRequest;
+import org.springframework.batch.integration.chunk.ChunkResponse;
+import org.springframework.batch.item.Chunk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary wire format for remote chunking requests and responses.
+ * <p>
+ * ChunkRequest and ChunkResponse are Serializable, but Java serialization of their
+ * StepContribution drags along the whole StepExecution and JobExecution, and Customer is not
+ * Serializable. Only what the other side reads is written: the step identity (so contributions
+ * can be rebuilt and metrics tagged), the counts, and the items in the customer format.
+ * <pre>
+ * step     = jobInstanceId, jobExecutionId, stepExecutionId:varint, jobName, stepName:string
+ * request  = version:byte(1) sequence:varint step count:varint customer*count
+ * response = version:byte(1) sequence:varint step successful:byte redelivered:byte message:string
+ *            writeCount, filterCount, readSkipCount, writeSkipCount, processSkipCount:varint
+ *            exitCode, exitDescription:string
+ * </pre>
+ * A worker always starts from an empty contribution, so the request carries no counts.
+ */
+public final class ChunkMessageCodec {
+
+    public static final byte VERSION_1 = 1;
+
+    private ChunkMessageCodec() {
+    }
+
+    public static byte[] encodeRequest(ChunkRequest<Customer> request) {
+        Writer out = new Writer();
+        out.writeByte(VERSION_1);
+        out.writeVarLong(request.getSequence());
+        writeStep(out, request.getStepContribution().getStepExecution());
+        List<? extends Customer> items = request.getItems().getItems();
+        out.writeVarLong(items.size());
+        for (Customer customer : items) {
+            CustomerBinaryCodec.write(out, customer);
+        }
+        return out.toByteArray();
+    }
+
+    public static ChunkRequest<Customer> decodeRequest(byte[] data) {
+        Reader in = new Reader(data);
+        checkVersion(in);
+        int sequence = (int) in.readVarLong();
+        StepExecution stepExecution = readStep(in);
+        int count = (int) in.readVarLong();
+        List<Customer> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(CustomerBinaryCodec.read(in));
+        }
+        return new ChunkRequest<>(sequence, new Chunk<>(items), stepExecution.getJobExecution().getJobId(),
+                stepExecution.createStepContribution());
+    }
+
+    public static byte[] encodeResponse(ChunkResponse response) {
+        StepContribution contribution = response.getStepContribution();
+        Writer out = new Writer();
+        out.writeByte(VERSION_1);
+        out.writeVarLong(response.getSequence());
+        writeStep(out, contribution.getStepExecution());
+        out.writeByte(response.isSuccessful() ? 1 : 0);
+        out.writeByte(response.isRedelivered() ? 1 : 0);
+        out.writeString(response.getMessage());
+        out.writeVarLong(contribution.getWriteCount());
+        out.writeVarLong(contribution.getFilterCount());
+        out.writeVarLong(contribution.getReadSkipCount());
+        out.writeVarLong(contribution.getWriteSkipCount());
+        out.writeVarLong(contribution.getProcessSkipCount());
+        out.writeString(contribution.getExitStatus().getExitCode());
+        out.writeString(contribution.getExitStatus().getExitDescription());
+        return out.toByteArray();
+    }
+
+    public static ChunkResponse decodeResponse(byte[] data) {
+        Reader in = new Reader(data);
+        checkVersion(in);
+        int sequence = (int) in.readVarLong();
+        StepExecution stepExecution = readStep(in);
+        boolean successful = in.readByte() != 0;
+        boolean redelivered = in.readByte() != 0;
+        String message = in.readString();
+
+        StepContribution contribution = stepExecution.createStepContribution();
+        contribution.incrementWriteCount(in.readVarLong());
+        contribution.incrementFilterCount(in.readVarLong());
+        contribution.incrementReadSkipCount(in.readVarLong());
+        for (long i = in.readVarLong(); i > 0; i--) {
+            contribution.incrementWriteSkipCount();
+        }
+        for (long i = in.readVarLong(); i > 0; i--) {
+            contribution.incrementProcessSkipCount();
+        }
+        contribution.setExitStatus(new ExitStatus(in.readString(), in.readString()));
+        return new ChunkResponse(successful, sequence, stepExecution.getJobExecution().getJobId(), contribution,
+                message, redelivered);
+    }
+
+    private static void writeStep(Writer out, StepExecution stepExecution) {
+        JobExecution jobExecution = stepExecution.getJobExecution();
+        out.writeVarLong(jobExecution.getJobId());
+        out.writeVarLong(jobExecution.getId());
+        out.writeVarLong(stepExecution.getId());
+        out.writeString(jobExecution.getJobInstance().getJobName());
+        out.writeString(stepExecution.getStepName());
+    }
+
+    private static StepExecution readStep(Reader in) {
+        long jobInstanceId = in.readVarLong();
+        long jobExecutionId = in.readVarLong();
+        long stepExecutionId = in.readVarLong();
+        String jobName = in.readString();
+        String stepName = in.readString();
+        JobExecution jobExecution = new JobExecution(new JobInstance(jobInstanceId, jobName), jobExecutionId, null);
+        return new StepExecution(stepName, jobExecution, stepExecutionId);
+    }
+
+    private static void checkVersion(Reader in) {
+        byte version = in.readByte();
+        if (version != VERSION_1) {
+            throw new SerializationException("Unsupported chunk message format version " + version);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.Spring_batch_kafka.serde;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary wire format for {@link Customer}. The schema lives in the format version, so no
+ * registry is needed.
+ * <pre>
+ * v1: version:byte(1)
+ *     id:zigzag-varint
+ *     firstName, lastName, email:string
+ *     gender:dict
+ *     contactNo:string
+ *     country:dict
+ *     dob:string
+ *     processedAt:zigzag-varint(epoch millis + 1, 0 = null)
+ *     processedBy:string
+ *
+ * string = varint(byte length + 1, 0 = null) followed by UTF-8 bytes
+ * dict   = varint: 0 = null, 1 = string follows, n >= 2 = dictionary entry n - 2
+ * </pre>
+ * Dictionaries are append-only. Reordering or removing an entry requires a new version.
+ */
+public final class CustomerBinaryCodec {
+
+    public static final byte VERSION_1 = 1;
+
+    static final List<String> GENDERS = List.of(
+            "Female", "Male", "Genderqueer", "Non-binary", "Agender", "Genderfluid", "Bigender", "Polygender");
+
+    static final List<String> COUNTRIES = List.of(
+            "China", "Indonesia", "Brazil", "Russia", "Philippines", "Portugal", "France", "Poland",
+            "United States", "Sweden", "Japan", "Ukraine", "Thailand", "Greece", "Argentina", "Czech Republic",
+            "Canada", "Colombia", "Peru", "Vietnam", "Malaysia", "Ireland", "Serbia", "Slovenia",
+            "Finland", "South Africa", "Nigeria", "Croatia", "Albania", "Spain", "Netherlands", "Mexico");
+
+    private static final Map<String, Integer> GENDER_CODES = codes(GENDERS);
+    private static final Map<String, Integer> COUNTRY_CODES = codes(COUNTRIES);
+
+    private CustomerBinaryCodec() {
+    }
+
+    public static byte[] encode(Customer customer) {
+        Writer out = new Writer();
+        write(out, customer);
+        return out.toByteArray();
+    }
+
+    public static Customer decode(byte[] data) {
+        return read(new Reader(data));
+    }
+
+    static void write(Writer out, Customer customer) {
+        out.writeByte(VERSION_1);
+        out.writeVarLong(zigzag(customer.getId()));
+        out.writeString(customer.getFirstName());
+        out.writeString(customer.getLastName());
+        out.writeString(customer.getEmail());
+        out.writeDictionary(customer.getGender(), GENDER_CODES);
+        out.writeString(customer.getContactNo());
+        out.writeDictionary(customer.getCountry(), COUNTRY_CODES);
+        out.writeString(customer.getDob());
+        Date processedAt = customer.getProcessedAt();
+        out.writeVarLong(processedAt == null ? 0 : zigzag(processedAt.getTime()) + 1);
+        out.writeString(customer.getProcessedBy());
+    }
+
+    static Customer read(Reader in) {
+        byte version = in.readByte();
+        if (version != VERSION_1) {
+            throw new SerializationException("Unsupported customer format version " + version);
+        }
+        Customer customer = new Customer();
+        customer.setId(unzigzag(in.readVarLong()));
+        customer.setFirstName(in.readString());
+        customer.setLastName(in.readString());
+        customer.setEmail(in.readString());
+        customer.setGender(in.readDictionary(GENDERS));
+        customer.setContactNo(in.readString());
+        customer.setCountry(in.readDictionary(COUNTRIES));
+        customer.setDob(in.readString());
+        long processedAt = in.readVarLong();
+        customer.setProcessedAt(processedAt == 0 ? null : new Date(unzigzag(processedAt - 1)));
+        customer.setProcessedBy(in.readString());
+        return customer;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static Map<String, Integer> codes(List<String> dictionary) {
+        Map<String, Integer> codes = new HashMap<>();
+        for (int i = 0; i < dictionary.size(); i++) {
+            codes.put(dictionary.get(i), i + 2);
+        }
+        return codes;
+    }
+
+    static final class Writer {
+
+        private byte[] buffer = new byte[128];
+        private int position;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            int length = value.length();
+            if (isAscii(value, length)) {
+                writeVarLong(length + 1L);
+                ensureCapacity(length);
+                for (int i = 0; i < length; i++) {
+                    buffer[position++] = (byte) value.charAt(i);
+                }
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeDictionary(String value, Map<String, Integer> codes) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            Integer code = codes.get(value);
+            if (code != null) {
+                writeVarLong(code);
+            } else {
+                writeVarLong(1);
+                writeString(value);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private static boolean isAscii(String value, int length) {
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    static final class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            checkAvailable(1);
+            return data[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint at offset " + position);
+        }
+
+        String readString() {
+            long length = readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            checkAvailable(length);
+            String value = new String(data, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        String readDictionary(List<String> dictionary) {
+            long code = readVarLong();
+            if (code == 0) {
+                return null;
+            }
+            if (code == 1) {
+                return readString();
+            }
+            if (code - 2 >= dictionary.size()) {
+                throw new SerializationException("Unknown dictionary code " + code);
+            }
+            return dictionary.get((int) code - 2);
+        }
+
+        private void checkAvailable(long length) {
+            if (length > data.length - position) {
+                throw new SerializationException("Truncated customer record at offset " + position);
+            }
+        }
+    }
+}
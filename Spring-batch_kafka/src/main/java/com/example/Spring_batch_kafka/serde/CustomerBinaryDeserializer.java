@@ -0,0 +1,32 @@
+package com.example.Spring_batch_kafka.serde;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Reads {@link CustomerBinaryCodec} records. A payload starting with '{' is JSON written
+ * before the switch; it is handed to a {@link JsonDeserializer}, so a topic can be drained
+ * across the format change.
+ */
+public class CustomerBinaryDeserializer implements Deserializer<Customer> {
+
+    private final JsonDeserializer<Customer> jsonDeserializer =
+            new JsonDeserializer<>(Customer.class, false).trustedPackages("*");
+
+    @Override
+    public Customer deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length > 0 && data[0] == '{') {
+            return jsonDeserializer.deserialize(topic, data);
+        }
+        return CustomerBinaryCodec.decode(data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.Spring_batch_kafka.serde;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class CustomerBinarySerializer implements Serializer<Customer> {
+
+    @Override
+    public byte[] serialize(String topic, Customer customer) {
+        return customer == null ? null : CustomerBinaryCodec.encode(customer);
+    }
+}
@@ -2,6 +2,9 @@ package com.example.Spring_batch_kafka.service;
 
 
 import com.example.Spring_batch_kafka.dto.JobExecutionSummary;
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import com.example.Spring_batch_kafka.listener.RunningExecutionRegistry;
+import com.example.Spring_batch_kafka.repository.JobExecutionQueryRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.BatchStatus;
@@ -10,47 +13,48 @@ import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobOperator;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 @AllArgsConstructor
 public class BatchMonitoringService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private JobExplorer jobExplorer;
     private JobOperator jobOperator;
+    private JobExecutionQueryRepository jobExecutionQueryRepository;
+    private RunningExecutionRegistry runningExecutionRegistry;
+    private JobLaunchQueue jobLaunchQueue;
+    private ConnectionBudget connectionBudget;
 
     public List<JobExecutionSummary> getRecentJobExecutions(int count) {
-        return jobExplorer.getJobNames().stream()
-                .flatMap(jobName -> jobExplorer.getJobInstances(jobName, 0, count).stream())
-                .flatMap(jobInstance -> jobExplorer.getJobExecutions(jobInstance).stream())
-                .map(this::toSummary)
-                .sorted((a, b) -> b.getStartTime().compareTo(a.getStartTime()))
-                .limit(count)
-                .collect(Collectors.toList());
+        return getRecentJobExecutions(null, count);
+    }
+
+    public List<JobExecutionSummary> getRecentJobExecutions(Long beforeId, int count) {
+        return jobExecutionQueryRepository.findRecent(beforeId, pageSize(count));
     }
 
     public JobExecutionSummary getJobExecutionById(Long executionId) {
-        JobExecution execution = jobExplorer.getJobExecution(executionId);
-        return toSummary(execution);
+        return jobExecutionQueryRepository.findById(executionId)
+                .orElseThrow(() -> new BatchProcessingException(
+                        "Job execution not found: " + executionId, "EXECUTION_NOT_FOUND"));
     }
 
     public List<JobExecutionSummary> getJobExecutionsByName(String jobName, int count) {
-        return jobExplorer.getJobInstances(jobName, 0, count).stream()
-                .flatMap(jobInstance -> jobExplorer.getJobExecutions(jobInstance).stream())
-                .map(this::toSummary)
-                .collect(Collectors.toList());
+        return getJobExecutionsByName(jobName, null, count);
+    }
+
+    public List<JobExecutionSummary> getJobExecutionsByName(String jobName, Long beforeId, int count) {
+        return jobExecutionQueryRepository.findByJobName(jobName, beforeId, pageSize(count));
     }
 
     public List<JobExecutionSummary> getRunningJobExecutions() {
-        return jobExplorer.getJobNames().stream()
-                .flatMap(jobName -> jobExplorer.getJobInstances(jobName, 0, 100).stream())
-                .flatMap(jobInstance -> jobExplorer.getJobExecutions(jobInstance).stream())
-                .filter(execution -> execution.getStatus() == BatchStatus.STARTED)
-                .map(this::toSummary)
-                .collect(Collectors.toList());
+        return runningExecutionRegistry.getRunningExecutions();
     }
 
     public boolean stopJobExecution(Long executionId) {
@@ -70,36 +74,28 @@ public class BatchMonitoringService {
 
     public Map<String, Object> getBatchStatistics() {
         Map<String, Object> stats = new HashMap<>();
-        List<String> jobNames = jobExplorer.getJobNames();
 
-        stats.put("totalJobs", jobNames.size());
-        stats.put("runningJobs", getRunningJobExecutions().size());
+        stats.put("totalJobs", jobExecutionQueryRepository.countJobNames());
+        stats.put("runningJobs", runningExecutionRegistry.getRunningCount());
+        stats.put("launchQueue", jobLaunchQueue.getStatistics());
+        stats.put("connectionBudget", connectionBudget.getStatistics());
 
         return stats;
     }
 
     public Map<String, Object> getJobStatistics(String jobName) {
         Map<String, Object> stats = new HashMap<>();
-        List<JobExecution> executions = jobExplorer.getJobInstances(jobName, 0, 100).stream()
-                .flatMap(jobInstance -> jobExplorer.getJobExecutions(jobInstance).stream())
-                .collect(Collectors.toList());
+        Map<String, Long> byStatus = jobExecutionQueryRepository.countByStatus(jobName);
 
-        stats.put("totalExecutions", executions.size());
-        stats.put("successfulExecutions", executions.stream()
-                .filter(e -> e.getStatus() == BatchStatus.COMPLETED).count());
-        stats.put("failedExecutions", executions.stream()
-                .filter(e -> e.getStatus() == BatchStatus.FAILED).count());
+        stats.put("totalExecutions", byStatus.values().stream().mapToLong(Long::longValue).sum());
+        stats.put("successfulExecutions", byStatus.getOrDefault(BatchStatus.COMPLETED.name(), 0L));
+        stats.put("failedExecutions", byStatus.getOrDefault(BatchStatus.FAILED.name(), 0L));
+        stats.put("executionsByStatus", byStatus);
 
         return stats;
     }
 
-    private JobExecutionSummary toSummary(JobExecution execution) {
-        return JobExecutionSummary.builder()
-                .executionId(execution.getId())
-                .jobName(execution.getJobInstance().getJobName())
-                .status(execution.getStatus().name())
-                .startTime(execution.getStartTime())
-                .endTime(execution.getEndTime())
-                .build();
+    private static int pageSize(int count) {
+        return Math.max(1, Math.min(count, MAX_PAGE_SIZE));
     }
-}
\ No newline at end of file
+}
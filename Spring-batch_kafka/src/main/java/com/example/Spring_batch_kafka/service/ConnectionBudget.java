@@ -0,0 +1,132 @@
+package com.example.Spring_batch_kafka.service;
+
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for work that holds a pooled DB connection: partitions for their whole
+ * run, Kafka listener and remote worker transactions per batch. Each unit of work takes one
+ * of batch.db.budget.connections permits, default the Hikari pool size less
+ * batch.partition.reserved-connections, which stay free for the JobRepository and the REST
+ * API. Work beyond the budget waits here in arrival order instead of blocking inside
+ * getConnection, and whoever waits longest goes next.
+ * <p>
+ * Time spent waiting for a permit and time spent holding one are recorded per client as
+ * batch.db.budget.wait and batch.db.budget.work, and summarised by {@link #getStatistics()}.
+ * Work started while the thread already holds a permit runs without taking another.
+ */
+@Service
+@Slf4j
+public class ConnectionBudget {
+
+    private final int connections;
+    private final Semaphore permits;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ClientTimers> clients = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> holding = new ThreadLocal<>();
+
+    public ConnectionBudget(MeterRegistry meterRegistry,
+                            @Value("${batch.db.budget.connections:0}") int connections,
+                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                            @Value("${batch.partition.reserved-connections:4}") int reserved) {
+        this.connections = connections > 0 ? connections : Math.max(1, poolSize - reserved);
+        this.permits = new Semaphore(this.connections, true);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("batch.db.budget.in-use", this, ConnectionBudget::getInUse).register(meterRegistry);
+        Gauge.builder("batch.db.budget.waiting", permits, Semaphore::getQueueLength).register(meterRegistry);
+        log.info("DB connection budget: {} of {} pooled connections", this.connections, poolSize);
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public int getInUse() {
+        return connections - permits.availablePermits();
+    }
+
+    public void run(String client, Runnable work) {
+        call(client, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T call(String client, Supplier<T> work) {
+        if (holding.get() != null) {
+            return work.get();
+        }
+        ClientTimers timers = clients.computeIfAbsent(client, ClientTimers::new);
+        long start = System.nanoTime();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BatchProcessingException("Interrupted waiting for a database connection", e);
+        }
+        long admitted = System.nanoTime();
+        timers.wait.record(admitted - start, TimeUnit.NANOSECONDS);
+        holding.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            holding.remove();
+            permits.release();
+            timers.work.record(System.nanoTime() - admitted, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs every task of the delegate within the budget. Tasks wait for a permit on the
+     * delegate's thread, after the delegate's own queue.
+     */
+    public TaskExecutor admitting(String client, TaskExecutor delegate) {
+        return task -> delegate.execute(() -> run(client, task));
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> byClient = new TreeMap<>();
+        clients.forEach((client, timers) -> {
+            double waited = timers.wait.totalTime(TimeUnit.MILLISECONDS);
+            double worked = timers.work.totalTime(TimeUnit.MILLISECONDS);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("admitted", timers.wait.count());
+            stats.put("waitMs", Math.round(waited));
+            stats.put("workMs", Math.round(worked));
+            stats.put("waitShare", waited + worked == 0 ? 0 : Math.round(waited * 1000 / (waited + worked)) / 1000.0);
+            byClient.put(client, stats);
+        });
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connections);
+        stats.put("inUse", getInUse());
+        stats.put("waiting", permits.getQueueLength());
+        stats.put("clients", byClient);
+        return stats;
+    }
+
+    private final class ClientTimers {
+
+        private final Timer wait;
+        private final Timer work;
+
+        ClientTimers(String client) {
+            wait = Timer.builder("batch.db.budget.wait").tag("client", client).register(meterRegistry);
+            work = Timer.builder("batch.db.budget.work").tag("client", client).register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.Spring_batch_kafka.service;
+
+import com.example.Spring_batch_kafka.entity.CustomerAggregate.Bucket;
+import com.example.Spring_batch_kafka.listener.RunningExecutionRegistry;
+import com.example.Spring_batch_kafka.repository.CustomerAggregateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.SortedMap;
+
+/**
+ * Corrects drift in {@link CustomerAggregates} every customers.aggregates.reconcile-interval-ms.
+ * Customers are counted in a snapshot read that takes no locks, and the difference is added to
+ * customer_aggregates as relative increments, so writers never wait on it. Skipped while a job
+ * is running. Enabled with customers.aggregates.reconcile.enabled.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "customers.aggregates.reconcile.enabled", havingValue = "true")
+public class CustomerAggregateReconciler {
+
+    private final CustomerAggregateRepository customerAggregateRepository;
+    private final CustomerAggregates customerAggregates;
+    private final RunningExecutionRegistry runningExecutionRegistry;
+
+    @Scheduled(initialDelayString = "${customers.aggregates.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${customers.aggregates.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        int running = runningExecutionRegistry.getRunningCount();
+        if (running > 0) {
+            log.debug("Skipping customer_aggregates reconciliation, {} job(s) running", running);
+            return;
+        }
+        SortedMap<Bucket, Long> drift = customerAggregateRepository.findDrift();
+        if (drift.isEmpty()) {
+            return;
+        }
+        customerAggregateRepository.increment(0, drift);
+        customerAggregates.resync();
+        log.info("Corrected {} customer_aggregates bucket(s) from customers: {}", drift.size(), drift);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.Spring_batch_kafka.service;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.entity.CustomerAggregate.Bucket;
+import com.example.Spring_batch_kafka.repository.CustomerAggregateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.example.Spring_batch_kafka.entity.CustomerAggregate.COUNTRY;
+import static com.example.Spring_batch_kafka.entity.CustomerAggregate.GENDER;
+import static com.example.Spring_batch_kafka.entity.CustomerAggregate.PROCESSED;
+import static com.example.Spring_batch_kafka.entity.CustomerAggregate.TOTAL;
+
+/**
+ * Customer counts (total, processed, per country, per gender) kept up to date by the writers
+ * instead of being counted from the customers table. Every write adds its deltas to
+ * customer_aggregates in the same transaction as the rows. After the commit, the same deltas
+ * are applied to an in-memory mirror, which is what the count endpoints read.
+ * <p>
+ * Writes that may overwrite a customer (upserts, API updates) pass the replaced row and its
+ * contribution is subtracted. The mirror is reloaded from the table on start and every
+ * customers.aggregates.resync-interval-ms. That picks up writes from other instances, and
+ * corrects a delta that committed while a reload was in progress.
+ * <p>
+ * Replaced rows are read without locks, so two transactions writing the same customer at once
+ * may both count it, or subtract the same earlier row. {@link CustomerAggregateReconciler}
+ * corrects such drift when enabled.
+ */
+@Component
+@Slf4j
+public class CustomerAggregates implements ApplicationRunner {
+
+    private final CustomerAggregateRepository customerAggregateRepository;
+    private final int shards;
+    private final Map<Bucket, AtomicLong> mirror = new ConcurrentHashMap<>();
+
+    public CustomerAggregates(CustomerAggregateRepository customerAggregateRepository,
+                              @Value("${customers.aggregates.shards:16}") int shards) {
+        this.customerAggregateRepository = customerAggregateRepository;
+        this.shards = Math.max(1, shards);
+    }
+
+    public long getTotal() {
+        return get(new Bucket(TOTAL, null));
+    }
+
+    public long getProcessed() {
+        return get(new Bucket(PROCESSED, null));
+    }
+
+    public long getCountryCount(String country) {
+        return get(new Bucket(COUNTRY, country));
+    }
+
+    public Map<String, Long> getByCountry() {
+        return dimension(COUNTRY);
+    }
+
+    public Map<String, Long> getByGender() {
+        return dimension(GENDER);
+    }
+
+    /**
+     * The rows a write of these customers would overwrite, read without locks. Only needed when
+     * the write may replace existing customers.
+     */
+    public Map<Long, Customer> findExisting(Collection<? extends Customer> customers) {
+        return customerAggregateRepository.findExisting(
+                customers.stream().map(Customer::getId).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Call inside the transaction that writes the customers. A customer written more than once
+     * replaces its own earlier write.
+     */
+    public void recordWrites(Collection<? extends Customer> written, Map<Long, Customer> replaced) {
+        SortedMap<Bucket, Long> deltas = new TreeMap<>();
+        Map<Long, Customer> current = new HashMap<>(replaced);
+        for (Customer customer : written) {
+            Customer previous = current.put(customer.getId(), customer);
+            if (previous != null) {
+                add(deltas, previous, -1);
+            }
+            add(deltas, customer, 1);
+        }
+        apply(deltas);
+    }
+
+    /**
+     * The counted columns of a customer loaded before a JPA save, which overwrites the loaded
+     * entity in place, as the replaced row for {@link #recordWrites}.
+     */
+    public static Map<Long, Customer> replaced(Customer existing) {
+        return Map.of(existing.getId(), Customer.builder()
+                .id(existing.getId())
+                .country(existing.getCountry())
+                .gender(existing.getGender())
+                .processedAt(existing.getProcessedAt())
+                .build());
+    }
+
+    public void recordDelete(Customer deleted) {
+        SortedMap<Bucket, Long> deltas = new TreeMap<>();
+        add(deltas, deleted, -1);
+        apply(deltas);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (customerAggregateRepository.isEmpty()) {
+            customerAggregateRepository.rebuildFromCustomers();
+            log.info("Built customer_aggregates from the existing customers");
+        }
+        resync();
+    }
+
+    @Scheduled(initialDelayString = "${customers.aggregates.resync-interval-ms:60000}",
+            fixedDelayString = "${customers.aggregates.resync-interval-ms:60000}")
+    public void resync() {
+        Map<Bucket, Long> totals = customerAggregateRepository.loadTotals();
+        totals.forEach((bucket, count) -> mirror.computeIfAbsent(bucket, b -> new AtomicLong()).set(count));
+        mirror.keySet().retainAll(totals.keySet());
+    }
+
+    private void apply(SortedMap<Bucket, Long> deltas) {
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        customerAggregateRepository.increment(shard(), deltas);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyToMirror(deltas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyToMirror(deltas);
+            }
+        });
+    }
+
+    private void applyToMirror(SortedMap<Bucket, Long> deltas) {
+        deltas.forEach((bucket, delta) -> mirror.computeIfAbsent(bucket, b -> new AtomicLong()).addAndGet(delta));
+    }
+
+    /**
+     * Writers on different threads mostly land on different shards, so their transactions do
+     * not wait for each other's row locks.
+     */
+    private int shard() {
+        return (int) (Thread.currentThread().getId() % shards);
+    }
+
+    private long get(Bucket bucket) {
+        AtomicLong count = mirror.get(bucket);
+        return count == null ? 0 : count.get();
+    }
+
+    private Map<String, Long> dimension(String dimension) {
+        return mirror.entrySet().stream()
+                .filter(entry -> entry.getKey().dimension().equals(dimension) && entry.getValue().get() != 0)
+                .collect(Collectors.toMap(entry -> entry.getKey().value(), entry -> entry.getValue().get(),
+                        (a, b) -> a, TreeMap::new));
+    }
+
+    private static void add(SortedMap<Bucket, Long> deltas, Customer customer, long sign) {
+        deltas.merge(new Bucket(TOTAL, null), sign, Long::sum);
+        if (customer.getProcessedAt() != null) {
+            deltas.merge(new Bucket(PROCESSED, null), sign, Long::sum);
+        }
+        deltas.merge(new Bucket(COUNTRY, customer.getCountry()), sign, Long::sum);
+        deltas.merge(new Bucket(GENDER, customer.getGender()), sign, Long::sum);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.Spring_batch_kafka.service;
+
+import com.example.Spring_batch_kafka.dto.CustomerPage;
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Keeps the read-through caches of {@link CustomerService} consistent with writes that do not
+ * go through the service. The batch writer and the Kafka consumers call
+ * {@link #refreshAfterCommit(Collection)} once per chunk. After the commit, customers already
+ * in the "customers" cache are replaced in one putAll. Customers that are not cached are not
+ * added, so an import does not push the API's working set out of the cache.
+ * <p>
+ * "customersByCountry" holds keyset pages ({@link CountryPage}), each at most one page of
+ * customers, so its size does not grow with the table. A written customer only evicts the
+ * pages of its country whose id range holds it; an import of new ids evicts just the last
+ * page of each country.
+ * <p>
+ * Boot binds cache.gets, cache.puts and cache.evictions for both caches (the spec needs
+ * recordStats). cache.hit.ratio is published here.
+ */
+@Component
+@Slf4j
+public class CustomerCache {
+
+    public static final String CUSTOMERS = "customers";
+    public static final String CUSTOMERS_BY_COUNTRY = "customersByCountry";
+
+    private final Cache<Object, Object> byId;
+    private final Cache<Object, Object> byCountry;
+
+    public CustomerCache(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.byId = nativeCache(cacheManager, CUSTOMERS);
+        this.byCountry = nativeCache(cacheManager, CUSTOMERS_BY_COUNTRY);
+        registerHitRatio(meterRegistry, CUSTOMERS, byId);
+        registerHitRatio(meterRegistry, CUSTOMERS_BY_COUNTRY, byCountry);
+    }
+
+    public void refreshAfterCommit(Collection<? extends Customer> customers) {
+        if (customers.isEmpty() || (byId == null && byCountry == null)) {
+            return;
+        }
+        // The chunk's item list is reused by the step once the transaction ends
+        List<Customer> written = List.copyOf(customers);
+        afterCommit(() -> refresh(written));
+    }
+
+    /**
+     * A single customer changed through the API. previousCountry is the country before the
+     * update, or null for inserts.
+     */
+    public void updated(Customer customer, String previousCountry) {
+        afterCommit(() -> {
+            if (byId != null) {
+                byId.put(customer.getId(), customer);
+            }
+            evictPages(idsByCountry(List.of(customer), previousCountry));
+        });
+    }
+
+    public void deleted(Customer customer) {
+        afterCommit(() -> {
+            if (byId != null) {
+                byId.invalidate(customer.getId());
+            }
+            evictPages(idsByCountry(List.of(customer), null));
+        });
+    }
+
+    void refresh(Collection<? extends Customer> customers) {
+        if (byId != null) {
+            Map<Long, Customer> written = new HashMap<>(customers.size() * 2);
+            for (Customer customer : customers) {
+                written.put(customer.getId(), customer);
+            }
+            Map<Object, Object> present = byId.getAllPresent(written.keySet());
+            if (!present.isEmpty()) {
+                Map<Object, Object> refreshed = new HashMap<>(present.size() * 2);
+                present.keySet().forEach(id -> refreshed.put(id, written.get(id)));
+                byId.putAll(refreshed);
+            }
+        }
+        evictPages(idsByCountry(customers, null));
+    }
+
+    public static CountryPage countryPage(String country, Long afterId, int size) {
+        return new CountryPage(country, afterId == null ? 0 : afterId, size);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void evictPages(Map<String, NavigableSet<Long>> idsByCountry) {
+        if (byCountry == null || idsByCountry.isEmpty()) {
+            return;
+        }
+        byCountry.asMap().entrySet().removeIf(entry -> entry.getKey() instanceof CountryPage page
+                && idsByCountry.containsKey(page.country())
+                && page.isChangedBy(idsByCountry.get(page.country()), entry.getValue()));
+    }
+
+    /**
+     * previousCountry, if not null, is where the customer was before this write.
+     */
+    private static Map<String, NavigableSet<Long>> idsByCountry(Collection<? extends Customer> customers,
+                                                                String previousCountry) {
+        Map<String, NavigableSet<Long>> ids = new HashMap<>();
+        for (Customer customer : customers) {
+            if (customer.getCountry() != null) {
+                ids.computeIfAbsent(customer.getCountry(), c -> new TreeSet<>()).add(customer.getId());
+            }
+            if (previousCountry != null) {
+                ids.computeIfAbsent(previousCountry, c -> new TreeSet<>()).add(customer.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Key of a cached keyset page: the customers of country with id > afterId. A write of one
+     * of those customers changes the page only if its id is at most the page's nextAfterId,
+     * or anywhere above afterId on the last page.
+     */
+    public record CountryPage(String country, long afterId, int size) {
+
+        boolean isChangedBy(NavigableSet<Long> ids, Object cached) {
+            Long first = ids.higher(afterId);
+            if (first == null) {
+                return false;
+            }
+            return !(cached instanceof CustomerPage page) || page.getNextAfterId() == null
+                    || first <= page.getNextAfterId();
+        }
+    }
+
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (cache instanceof CaffeineCache caffeineCache) {
+            return caffeineCache.getNativeCache();
+        }
+        log.warn("Cache {} is not a Caffeine cache, batch writes will not refresh it", name);
+        return null;
+    }
+
+    private static void registerHitRatio(MeterRegistry meterRegistry, String name, Cache<Object, Object> cache) {
+        if (cache != null) {
+            Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                    .tag("cache", name)
+                    .description("Hit ratio since startup, needs recordStats in the Caffeine spec")
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.Spring_batch_kafka.service;
+
+import com.example.Spring_batch_kafka.repository.CustomerQueryRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.TimeZone;
+
+/**
+ * Streams customers straight from the JDBC cursor to the response, one row at a time.
+ * Nothing is collected, so an export of millions of rows uses the same memory as one row.
+ */
+@Service
+@AllArgsConstructor
+@Slf4j
+public class CustomerExportService {
+
+    private static final String CSV_HEADER =
+            "id,first_name,last_name,email,gender,contact_no,country,dob,processed_at,processed_by";
+
+    private CustomerQueryRepository customerQueryRepository;
+    private ObjectMapper objectMapper;
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return the format named by value, defaultFormat if it is blank, or empty if no
+         * format has that name
+         */
+        public static Optional<Format> from(String value, Format defaultFormat) {
+            if (value == null || value.isBlank()) {
+                return Optional.of(defaultFormat);
+            }
+            return Arrays.stream(values()).filter(format -> format.name().equalsIgnoreCase(value.trim())).findFirst();
+        }
+
+        public static List<String> names() {
+            return Arrays.stream(values()).map(format -> format.name().toLowerCase()).toList();
+        }
+    }
+
+    /**
+     * Writes every customer with id > afterId, optionally of one country, in id order.
+     * A client that lost the connection can resume with the last id it received.
+     */
+    public long export(Format format, long afterId, String country, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long[] rows = {0};
+        try {
+            if (format == Format.CSV) {
+                exportCsv(afterId, country, out, rows);
+            } else {
+                exportNdjson(afterId, country, out, rows);
+            }
+        } catch (UncheckedIOException e) {
+            log.warn("Customer export aborted after {} rows: {}", rows[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        log.info("Exported {} customers as {} in {} ms", rows[0], format, System.currentTimeMillis() - start);
+        return rows[0];
+    }
+
+    private void exportNdjson(long afterId, String country, OutputStream out, long[] rows) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            customerQueryRepository.stream(afterId, country, customer -> {
+                try {
+                    generator.writeObject(customer);
+                    generator.writeRaw('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void exportCsv(long afterId, String country, OutputStream out, long[] rows) throws IOException {
+        SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+        timestampFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        customerQueryRepository.stream(afterId, country, customer -> {
+            try {
+                writer.write(Long.toString(customer.getId()));
+                writeCsvField(writer, customer.getFirstName());
+                writeCsvField(writer, customer.getLastName());
+                writeCsvField(writer, customer.getEmail());
+                writeCsvField(writer, customer.getGender());
+                writeCsvField(writer, customer.getContactNo());
+                writeCsvField(writer, customer.getCountry());
+                writeCsvField(writer, customer.getDob());
+                writeCsvField(writer, customer.getProcessedAt() != null
+                        ? timestampFormat.format(customer.getProcessedAt()) : null);
+                writeCsvField(writer, customer.getProcessedBy());
+                writer.write('\n');
+                rows[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -1,40 +1,82 @@
 package com.example.Spring_batch_kafka.service;
 
 
+import com.example.Spring_batch_kafka.dto.CustomerPage;
 import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.repository.CustomerQueryRepository;
 import com.example.Spring_batch_kafka.repository.CustomerRepository;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @AllArgsConstructor
 public class CustomerService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private CustomerRepository customerRepository;
+    private CustomerQueryRepository customerQueryRepository;
+    private CustomerCache customerCache;
+    private CustomerAggregates customerAggregates;
 
     public Page<Customer> getAllCustomers(Pageable pageable) {
         return customerRepository.findAll(pageable);
     }
 
-    public Optional<Customer> getCustomerById(Long id) {
-        return customerRepository.findById(id);
+    /**
+     * Keyset page of customers with id > afterId. One extra row is fetched to tell whether
+     * another page follows, so the last page has no nextAfterId and no COUNT(*) is needed.
+     * Pages of one country are cached, see {@link CustomerCache.CountryPage}.
+     */
+    @Cacheable(cacheNames = CustomerCache.CUSTOMERS_BY_COUNTRY, condition = "#country != null",
+            key = "T(com.example.Spring_batch_kafka.service.CustomerCache).countryPage(#country, #afterId, #size)")
+    public CustomerPage getCustomersAfter(Long afterId, String country, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<Customer> customers = customerQueryRepository.findAfter(afterId == null ? 0 : afterId, country, limit + 1);
+        boolean hasMore = customers.size() > limit;
+        if (hasMore) {
+            customers = customers.subList(0, limit);
+        }
+        return CustomerPage.builder()
+                .customers(customers)
+                .size(customers.size())
+                .nextAfterId(hasMore ? customers.get(limit - 1).getId() : null)
+                .build();
     }
 
-    public List<Customer> getCustomersByCountry(String country) {
-        return customerRepository.findByCountry(country);
+    @Cacheable(cacheNames = CustomerCache.CUSTOMERS, key = "#id")
+    public Optional<Customer> getCustomerById(Long id) {
+        return customerRepository.findById(id);
     }
 
+    @Transactional
     public Customer createCustomer(Customer customer) {
-        return customerRepository.save(customer);
+        Customer saved = customerRepository.save(customer);
+        customerAggregates.recordWrites(List.of(saved), Map.of());
+        customerCache.updated(saved, null);
+        return saved;
     }
 
+    @Transactional
     public Optional<Customer> updateCustomer(Long id, Customer customer) {
-        return customerRepository.findById(id)
+        return customerRepository.findForUpdateById(id)
                 .map(existing -> {
+                    String previousCountry = existing.getCountry();
+                    Customer previous = Customer.builder()
+                            .id(existing.getId())
+                            .country(existing.getCountry())
+                            .gender(existing.getGender())
+                            .processedAt(existing.getProcessedAt())
+                            .build();
                     existing.setFirstName(customer.getFirstName());
                     existing.setLastName(customer.getLastName());
                     existing.setEmail(customer.getEmail());
@@ -42,19 +84,40 @@ public class CustomerService {
                     existing.setContactNo(customer.getContactNo());
                     existing.setCountry(customer.getCountry());
                     existing.setDob(customer.getDob());
-                    return customerRepository.save(existing);
+                    Customer saved = customerRepository.save(existing);
+                    customerAggregates.recordWrites(List.of(saved), Map.of(id, previous));
+                    customerCache.updated(saved, previousCountry);
+                    return saved;
                 });
     }
 
+    @Transactional
     public void deleteCustomer(Long id) {
-        customerRepository.deleteById(id);
+        customerRepository.findForUpdateById(id).ifPresent(existing -> {
+            customerRepository.delete(existing);
+            customerAggregates.recordDelete(existing);
+            customerCache.deleted(existing);
+        });
     }
 
     public Long getCustomerCount() {
-        return customerRepository.count();
+        return customerAggregates.getTotal();
     }
 
     public Long getProcessedCustomerCount() {
-        return customerRepository.countByProcessedAtIsNotNull();
+        return customerAggregates.getProcessed();
+    }
+
+    public Long getCustomerCountByCountry(String country) {
+        return customerAggregates.getCountryCount(country);
+    }
+
+    public Map<String, Object> getCustomerAggregates() {
+        Map<String, Object> aggregates = new LinkedHashMap<>();
+        aggregates.put("total", customerAggregates.getTotal());
+        aggregates.put("processed", customerAggregates.getProcessed());
+        aggregates.put("byCountry", customerAggregates.getByCountry());
+        aggregates.put("byGender", customerAggregates.getByGender());
+        return aggregates;
     }
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.example.Spring_batch_kafka.service;
+
+import com.example.Spring_batch_kafka.config.CustomerStreamsConfig;
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import lombok.AllArgsConstructor;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreType;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Interactive queries against the state stores of {@link CustomerStreamsConfig}: live
+ * ingestion counts read from the stream instead of counting the customers table. Queries
+ * fail with {@link #NOT_READY} while the stream is starting or rebalancing.
+ */
+@Service
+@AllArgsConstructor
+@ConditionalOnProperty(name = "kafka.streams.enabled", havingValue = "true")
+public class CustomerStreamStats {
+
+    public static final String NOT_READY = "STREAM_NOT_READY";
+
+    private final StreamsBuilderFactoryBean customerStreamsBuilder;
+
+    public Map<String, Long> getByCountry() {
+        return counts(CustomerStreamsConfig.COUNTRY_STORE);
+    }
+
+    public Map<String, Long> getByGender() {
+        return counts(CustomerStreamsConfig.GENDER_STORE);
+    }
+
+    public long getCountryCount(String country) {
+        Long count = keyValueStore(CustomerStreamsConfig.COUNTRY_STORE).get(country);
+        return count == null ? 0 : count;
+    }
+
+    public Map<String, Object> getSummary() {
+        Map<String, Long> byCountry = getByCountry();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", byCountry.values().stream().mapToLong(Long::longValue).sum());
+        summary.put("byCountry", byCountry);
+        summary.put("byGender", getByGender());
+        return summary;
+    }
+
+    /**
+     * Records received per window over the last period, oldest first, with the count per
+     * country of each window.
+     */
+    public List<Map<String, Object>> getRate(Duration period) {
+        ReadOnlyWindowStore<String, Long> store = store(CustomerStreamsConfig.RATE_STORE,
+                QueryableStoreTypes.windowStore());
+        Instant to = Instant.now();
+        Map<Long, Map<String, Long>> windows = new TreeMap<>();
+        Map<Long, Long> windowEnds = new TreeMap<>();
+        try (KeyValueIterator<Windowed<String>, Long> iterator = store.fetchAll(to.minus(period), to)) {
+            while (iterator.hasNext()) {
+                KeyValue<Windowed<String>, Long> entry = iterator.next();
+                long start = entry.key.window().start();
+                windows.computeIfAbsent(start, s -> new TreeMap<>()).put(entry.key.key(), entry.value);
+                windowEnds.put(start, entry.key.window().end());
+            }
+        }
+
+        List<Map<String, Object>> rate = new ArrayList<>();
+        windows.forEach((start, byCountry) -> {
+            long count = byCountry.values().stream().mapToLong(Long::longValue).sum();
+            long seconds = Math.max(1, (windowEnds.get(start) - start) / 1000);
+            Map<String, Object> window = new LinkedHashMap<>();
+            window.put("start", Instant.ofEpochMilli(start).toString());
+            window.put("end", Instant.ofEpochMilli(windowEnds.get(start)).toString());
+            window.put("count", count);
+            window.put("perSecond", Math.round(count * 100.0 / seconds) / 100.0);
+            window.put("byCountry", byCountry);
+            rate.add(window);
+        });
+        return rate;
+    }
+
+    private Map<String, Long> counts(String storeName) {
+        Map<String, Long> counts = new TreeMap<>();
+        try (KeyValueIterator<String, Long> iterator = keyValueStore(storeName).all()) {
+            iterator.forEachRemaining(entry -> {
+                if (entry.value != null && entry.value != 0) {
+                    counts.put(entry.key, entry.value);
+                }
+            });
+        }
+        return counts;
+    }
+
+    private ReadOnlyKeyValueStore<String, Long> keyValueStore(String storeName) {
+        return store(storeName, QueryableStoreTypes.keyValueStore());
+    }
+
+    private <T> T store(String storeName, QueryableStoreType<T> type) {
+        KafkaStreams streams = customerStreamsBuilder.getKafkaStreams();
+        if (streams == null || streams.state() != KafkaStreams.State.RUNNING) {
+            throw new BatchProcessingException("Customer stream is not running"
+                    + (streams == null ? "" : " (" + streams.state() + ")"), NOT_READY);
+        }
+        try {
+            return streams.store(StoreQueryParameters.fromNameAndType(storeName, type));
+        } catch (InvalidStateStoreException e) {
+            throw new BatchProcessingException("Store " + storeName + " is not queryable yet", NOT_READY, e);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.Spring_batch_kafka.service;
+
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous job launches. {@link #submit} creates the JobExecution (status STARTING) and
+ * returns it right away. The job is run later on one of batch.launch.max-concurrent-jobs
+ * threads.
+ * <p>
+ * Waiting launches run highest priority first, then in submission order. A launch whose
+ * job already has its share of running executions is passed over for the next one. That
+ * share is batch.launch.max-concurrent-per-job, overridden per job name by
+ * batch.launch.job-limits ("name=limit,..."). At most batch.launch.queue-capacity launches
+ * wait; beyond that, submit fails with LAUNCH_QUEUE_FULL and nothing is created.
+ * <p>
+ * A queued execution can be stopped like a running one; it then ends as STOPPED without
+ * running. Launches still queued at shutdown are marked STOPPED, so they can be restarted.
+ */
+@Service
+@Slf4j
+public class JobLaunchQueue {
+
+    public static final String QUEUE_FULL = "LAUNCH_QUEUE_FULL";
+
+    private final JobRepository jobRepository;
+    private final int capacity;
+    private final int maxConcurrentJobs;
+    private final int maxConcurrentPerJob;
+    private final Map<String, Integer> jobLimits;
+    private final ThreadPoolTaskExecutor executor;
+    private final Timer waitTimer;
+
+    private final PriorityQueue<Launch> queue = new PriorityQueue<>(
+            Comparator.comparingInt(Launch::priority).reversed().thenComparingLong(Launch::sequence));
+    private final Map<String, Integer> runningByJob = new HashMap<>();
+    private int running;
+    // queue slots held by submits still creating their execution
+    private int reserved;
+    private long sequence;
+    private long launched;
+    private long totalWaitMillis;
+
+    public JobLaunchQueue(JobRepository jobRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${batch.launch.queue-capacity:100}") int capacity,
+                          @Value("${batch.launch.max-concurrent-jobs:4}") int maxConcurrentJobs,
+                          @Value("${batch.launch.max-concurrent-per-job:1}") int maxConcurrentPerJob,
+                          @Value("${batch.launch.job-limits:}") String jobLimits) {
+        this.jobRepository = jobRepository;
+        this.capacity = capacity;
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        this.maxConcurrentPerJob = maxConcurrentPerJob;
+        this.jobLimits = parseLimits(jobLimits);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs);
+        executor.setMaxPoolSize(maxConcurrentJobs);
+        executor.setThreadNamePrefix("batch-launch-");
+        executor.initialize();
+
+        waitTimer = Timer.builder("batch.launch.wait").register(meterRegistry);
+        Gauge.builder("batch.launch.queue.depth", this, JobLaunchQueue::getQueuedCount).register(meterRegistry);
+        Gauge.builder("batch.launch.running", this, JobLaunchQueue::getRunningCount).register(meterRegistry);
+    }
+
+    /**
+     * Creates the execution and queues it. Higher priorities run first; ad-hoc imports
+     * typically use a positive priority, bulk backfills a negative one.
+     */
+    public JobExecution submit(Job job, JobParameters jobParameters, int priority)
+            throws JobParametersInvalidException, JobExecutionAlreadyRunningException,
+            JobRestartException, JobInstanceAlreadyCompleteException {
+
+        job.getJobParametersValidator().validate(jobParameters);
+        synchronized (this) {
+            if (queue.size() + reserved >= capacity) {
+                throw new BatchProcessingException(
+                        "Launch queue is full (" + capacity + " waiting)", QUEUE_FULL);
+            }
+            reserved++;
+        }
+
+        // a repository round trip; other submits and finishing jobs must not wait for it
+        JobExecution execution;
+        try {
+            execution = jobRepository.createJobExecution(job.getName(), jobParameters);
+        } catch (Exception e) {
+            synchronized (this) {
+                reserved--;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            reserved--;
+            queue.add(new Launch(job, execution, priority, sequence++, System.nanoTime()));
+            log.info("Queued {} execution {} with priority {} ({} waiting, {} running)",
+                    job.getName(), execution.getId(), priority, queue.size(), running);
+            dispatch();
+            return execution;
+        }
+    }
+
+    /**
+     * Number of launches that would run before the given execution, or -1 once it has started.
+     */
+    public synchronized int getPosition(long executionId) {
+        List<Launch> ordered = new ArrayList<>(queue);
+        ordered.sort(queue.comparator());
+        for (int i = 0; i < ordered.size(); i++) {
+            if (ordered.get(i).execution().getId() == executionId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        long now = System.nanoTime();
+        Map<String, Integer> queuedByJob = new TreeMap<>();
+        long oldestWait = 0;
+        for (Launch launch : queue) {
+            queuedByJob.merge(launch.job().getName(), 1, Integer::sum);
+            oldestWait = Math.max(oldestWait, now - launch.queuedAt());
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("capacity", capacity);
+        stats.put("running", running);
+        stats.put("maxConcurrentJobs", maxConcurrentJobs);
+        stats.put("queuedByJob", queuedByJob);
+        stats.put("runningByJob", new TreeMap<>(runningByJob));
+        stats.put("oldestWaitMs", TimeUnit.NANOSECONDS.toMillis(oldestWait));
+        stats.put("launched", launched);
+        stats.put("averageWaitMs", launched == 0 ? 0 : totalWaitMillis / launched);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Launch> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(queue);
+            queue.clear();
+        }
+        for (Launch launch : pending) {
+            JobExecution execution = launch.execution();
+            execution.setStatus(BatchStatus.STOPPED);
+            execution.setExitStatus(ExitStatus.STOPPED.addExitDescription("Shut down before launch"));
+            execution.setEndTime(LocalDateTime.now());
+            jobRepository.update(execution);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Stopped {} queued launches on shutdown", pending.size());
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Starts every waiting launch that fits the limits. Called with the monitor held, after
+     * each submit and each finished job.
+     */
+    private void dispatch() {
+        List<Launch> candidates = new ArrayList<>(queue);
+        candidates.sort(queue.comparator());
+        for (Launch launch : candidates) {
+            if (running >= maxConcurrentJobs) {
+                return;
+            }
+            String jobName = launch.job().getName();
+            if (runningByJob.getOrDefault(jobName, 0) >= jobLimits.getOrDefault(jobName, maxConcurrentPerJob)) {
+                continue;
+            }
+            queue.remove(launch);
+            running++;
+            runningByJob.merge(jobName, 1, Integer::sum);
+            long waited = System.nanoTime() - launch.queuedAt();
+            waitTimer.record(waited, TimeUnit.NANOSECONDS);
+            launched++;
+            totalWaitMillis += TimeUnit.NANOSECONDS.toMillis(waited);
+            executor.execute(() -> run(launch));
+        }
+    }
+
+    private void run(Launch launch) {
+        JobExecution execution = launch.execution();
+        try {
+            log.info("Launching {} execution {} after {} ms in queue", launch.job().getName(), execution.getId(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launch.queuedAt()));
+            // picks up a stop requested while the launch was queued
+            jobRepository.update(execution);
+            launch.job().execute(execution);
+        } catch (Throwable e) {
+            log.error("{} execution {} failed", launch.job().getName(), execution.getId(), e);
+        } finally {
+            synchronized (this) {
+                running--;
+                runningByJob.computeIfPresent(launch.job().getName(), (name, count) -> count == 1 ? null : count - 1);
+                dispatch();
+            }
+        }
+    }
+
+    static Map<String, Integer> parseLimits(String limits) {
+        Map<String, Integer> parsed = new HashMap<>();
+        for (String entry : limits.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid batch.launch.job-limits entry: " + entry);
+            }
+            parsed.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return parsed;
+    }
+
+    private record Launch(Job job, JobExecution execution, int priority, long sequence, long queuedAt) {
+    }
+}
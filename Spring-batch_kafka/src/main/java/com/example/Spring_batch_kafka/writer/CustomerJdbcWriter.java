@@ -0,0 +1,239 @@
+package com.example.Spring_batch_kafka.writer;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import com.example.Spring_batch_kafka.service.CustomerAggregates;
+import com.example.Spring_batch_kafka.service.CustomerCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a whole chunk of customers with one JDBC batch, bypassing the JPA persistence
+ * context. On MySQL the batch is sent as multi-row inserts (rewriteBatchedStatements=true
+ * on the URL), or through LOAD DATA LOCAL INFILE when batch.writer.mysql-bulk-load=true
+ * (requires allowLoadLocalInfile=true on the URL and local_infile=ON on the server).
+ * <p>
+ * {@link WriteMode#UPSERT} keys on the CSV customer id: ON DUPLICATE KEY UPDATE on MySQL,
+ * MERGE ... KEY on H2, ON CONFLICT on PostgreSQL. It is the default, so re-running an import
+ * over a loaded table refreshes the rows. Inside a transaction the chunk is first inserted
+ * behind a savepoint, so a chunk of new ids is written without reading customers. Only when an
+ * id already exists is the insert rolled back, the replaced rows read without locks for
+ * {@link CustomerAggregates}, and the chunk upserted. {@link WriteMode#INSERT} fails on ids
+ * already in the table; opt in with batch.writer.default-mode or the writeMode job parameter
+ * when loading into an empty table.
+ * <p>
+ * Each chunk also updates {@link CustomerAggregates} in the same transaction. Cached customers
+ * are refreshed once the chunk commits, see {@link CustomerCache}.
+ */
+@Component
+@Slf4j
+public class CustomerJdbcWriter implements ItemWriter<Customer> {
+
+    static final String TABLE = "customers";
+    static final String COLUMNS =
+            "id, first_name, last_name, email, gender, contact_no, country, dob, processed_at, processed_by";
+
+    private static final String PLACEHOLDERS = "?, ?, ?, ?, ?, ?, ?, ?, ?, ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO " + TABLE + " (" + COLUMNS + ") VALUES (" + PLACEHOLDERS + ")";
+    private static final String[] UPDATED_COLUMNS = {
+            "first_name", "last_name", "email", "gender", "contact_no", "country", "dob",
+            "processed_at", "processed_by"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerCache customerCache;
+    private final CustomerAggregates customerAggregates;
+    private final boolean bulkLoadEnabled;
+    private final WriteMode defaultMode;
+    private volatile SqlDialect dialect;
+
+    public CustomerJdbcWriter(JdbcTemplate jdbcTemplate,
+                              CustomerCache customerCache,
+                              CustomerAggregates customerAggregates,
+                              @Value("${batch.writer.mysql-bulk-load:false}") boolean bulkLoadEnabled,
+                              @Value("${batch.writer.default-mode:upsert}") String defaultMode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerCache = customerCache;
+        this.customerAggregates = customerAggregates;
+        this.bulkLoadEnabled = bulkLoadEnabled;
+        this.defaultMode = WriteMode.from(defaultMode, WriteMode.UPSERT);
+    }
+
+    @Override
+    public void write(Chunk<? extends Customer> chunk) throws Exception {
+        write(chunk, defaultMode);
+    }
+
+    public void write(Chunk<? extends Customer> chunk, WriteMode mode) throws Exception {
+        List<? extends Customer> customers = chunk.getItems();
+        if (customers.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Customer> replaced = Map.of();
+        if (bulkLoadEnabled && dialect() == SqlDialect.MYSQL) {
+            if (mode == WriteMode.UPSERT) {
+                replaced = customerAggregates.findExisting(customers);
+            }
+            loadData(customers, mode);
+        } else if (mode == WriteMode.UPSERT) {
+            replaced = upsert(customers);
+        } else {
+            jdbcTemplate.batchUpdate(INSERT_SQL, customers, customers.size(), CustomerJdbcWriter::bind);
+        }
+        customerAggregates.recordWrites(customers, replaced);
+        customerCache.refreshAfterCommit(customers);
+        log.debug("Wrote {} customers ({})", customers.size(), mode);
+    }
+
+    /**
+     * Writes the chunk and returns the rows it replaced.
+     */
+    private Map<Long, Customer> upsert(List<? extends Customer> customers) throws SQLException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            Connection connection = DataSourceUtils.getConnection(jdbcTemplate.getDataSource());
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, customers, customers.size(), CustomerJdbcWriter::bind);
+                connection.releaseSavepoint(savepoint);
+                return Map.of();
+            } catch (DuplicateKeyException e) {
+                connection.rollback(savepoint);
+                log.debug("Chunk contains existing customers, upserting: {}", e.getMessage());
+            } finally {
+                DataSourceUtils.releaseConnection(connection, jdbcTemplate.getDataSource());
+            }
+        }
+        Map<Long, Customer> replaced = customerAggregates.findExisting(customers);
+        jdbcTemplate.batchUpdate(upsertSql(dialect()), customers, customers.size(), CustomerJdbcWriter::bind);
+        return replaced;
+    }
+
+    public ItemWriter<Customer> withMode(WriteMode mode) {
+        return chunk -> write(chunk, mode);
+    }
+
+    public WriteMode getDefaultMode() {
+        return defaultMode;
+    }
+
+    SqlDialect dialect() {
+        if (dialect == null) {
+            dialect = SqlDialect.detect(jdbcTemplate.getDataSource());
+        }
+        return dialect;
+    }
+
+    static String upsertSql(SqlDialect dialect) {
+        return switch (dialect) {
+            case MYSQL -> INSERT_SQL + " ON DUPLICATE KEY UPDATE "
+                    + assignments(column -> column + " = VALUES(" + column + ")");
+            case H2 -> "MERGE INTO " + TABLE + " (" + COLUMNS + ") KEY (id) VALUES (" + PLACEHOLDERS + ")";
+            case POSTGRES -> INSERT_SQL + " ON CONFLICT (id) DO UPDATE SET "
+                    + assignments(column -> column + " = EXCLUDED." + column);
+            case OTHER -> throw new BatchProcessingException(
+                    "Upsert is not supported for this database", "UNSUPPORTED_DIALECT");
+        };
+    }
+
+    private static String assignments(Function<String, String> assignment) {
+        return Arrays.stream(UPDATED_COLUMNS).map(assignment).collect(Collectors.joining(", "));
+    }
+
+    static void bind(PreparedStatement ps, Customer customer) throws SQLException {
+        ps.setLong(1, customer.getId());
+        ps.setString(2, customer.getFirstName());
+        ps.setString(3, customer.getLastName());
+        ps.setString(4, customer.getEmail());
+        ps.setString(5, customer.getGender());
+        ps.setString(6, customer.getContactNo());
+        ps.setString(7, customer.getCountry());
+        ps.setString(8, customer.getDob());
+        if (customer.getProcessedAt() != null) {
+            ps.setTimestamp(9, new Timestamp(customer.getProcessedAt().getTime()));
+        } else {
+            ps.setNull(9, Types.TIMESTAMP);
+        }
+        ps.setString(10, customer.getProcessedBy());
+    }
+
+    private void loadData(List<? extends Customer> customers, WriteMode mode) throws IOException {
+        Path file = Files.createTempFile("customers-load", ".tsv");
+        try {
+            writeTsv(file, customers);
+            String path = file.toAbsolutePath().toString().replace("\\", "/");
+            String duplicates = mode == WriteMode.UPSERT ? " REPLACE" : "";
+            jdbcTemplate.execute("LOAD DATA LOCAL INFILE '" + path + "'" + duplicates + " INTO TABLE " + TABLE
+                    + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\'"
+                    + " LINES TERMINATED BY '\\n' (" + COLUMNS + ")");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void writeTsv(Path file, List<? extends Customer> customers) throws IOException {
+        SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        timestampFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Customer customer : customers) {
+                writer.write(Long.toString(customer.getId()));
+                writeField(writer, customer.getFirstName());
+                writeField(writer, customer.getLastName());
+                writeField(writer, customer.getEmail());
+                writeField(writer, customer.getGender());
+                writeField(writer, customer.getContactNo());
+                writeField(writer, customer.getCountry());
+                writeField(writer, customer.getDob());
+                writeField(writer, customer.getProcessedAt() != null
+                        ? timestampFormat.format(customer.getProcessedAt()) : null);
+                writeField(writer, customer.getProcessedBy());
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static void writeField(BufferedWriter writer, String value) throws IOException {
+        writer.write('\t');
+        if (value == null) {
+            writer.write("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\t' -> writer.write("\\t");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\\' -> writer.write("\\\\");
+                default -> writer.write(c);
+            }
+        }
+    }
+}
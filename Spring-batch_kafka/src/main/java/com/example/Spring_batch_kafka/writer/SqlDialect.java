@@ -0,0 +1,40 @@
+package com.example.Spring_batch_kafka.writer;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+public enum SqlDialect {
+    MYSQL,
+    H2,
+    POSTGRES,
+    OTHER;
+
+    public static SqlDialect detect(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return fromProductName(product);
+        } catch (MetaDataAccessException e) {
+            return OTHER;
+        }
+    }
+
+    static SqlDialect fromProductName(String product) {
+        if (product == null) {
+            return OTHER;
+        }
+        String name = product.toLowerCase();
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return MYSQL;
+        }
+        if (name.contains("h2")) {
+            return H2;
+        }
+        if (name.contains("postgres")) {
+            return POSTGRES;
+        }
+        return OTHER;
+    }
+}
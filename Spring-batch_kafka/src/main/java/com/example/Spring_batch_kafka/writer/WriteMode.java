@@ -0,0 +1,13 @@
+package com.example.Spring_batch_kafka.writer;
+
+public enum WriteMode {
+    INSERT,
+    UPSERT;
+
+    public static WriteMode from(String value, WriteMode defaultMode) {
+        if (value == null || value.isBlank()) {
+            return defaultMode;
+        }
+        return WriteMode.valueOf(value.trim().toUpperCase());
+    }
+}
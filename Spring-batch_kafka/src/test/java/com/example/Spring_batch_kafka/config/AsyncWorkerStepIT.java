@@ -0,0 +1,154 @@
+package com.example.Spring_batch_kafka.config;
+
+import com.example.Spring_batch_kafka.SpringBatchKafkaApplication;
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.processor.CustomerProcessor;
+import com.example.Spring_batch_kafka.writer.CustomerJdbcWriter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.item.Chunk;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaZKBroker;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Runs workerStep with batch.processor.async.enabled over the bundled customers.csv in one
+ * partition. Processing is slowed so items complete out of read order, the writer records
+ * what it commits, and one chunk in the middle of the partition fails on the first run.
+ */
+class AsyncWorkerStepIT {
+
+    private static final long FAILING_ID = 437;
+
+    private static EmbeddedKafkaBroker broker;
+    private static ConfigurableApplicationContext context;
+    private static final List<Long> written = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean failing = new AtomicBoolean(true);
+
+    @BeforeAll
+    static void start() {
+        broker = new EmbeddedKafkaZKBroker(1, true, 1);
+        broker.afterPropertiesSet();
+        context = new SpringApplicationBuilder(SpringBatchKafkaApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(new BeanPostProcessor() {
+                            @Override
+                            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                                if (bean instanceof CustomerJdbcWriter writer) {
+                                    return recording(writer);
+                                }
+                                return bean instanceof CustomerProcessor processor ? reordering(processor) : bean;
+                            }
+                        }))
+                .run("--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "--spring.datasource.url=jdbc:h2:mem:async_worker_step;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jmx.enabled=false",
+                        "--spring.application.name=async-worker-step",
+                        "--batch.processor.async.enabled=true",
+                        "--batch.processor.async.concurrency=8",
+                        "--batch.processor.simulated-latency-ms=0",
+                        "--batch.partition.grid.size=1");
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+        broker.destroy();
+    }
+
+    @Test
+    void writesInReadOrderAndRestartsFromTheLastCommittedChunk() throws Exception {
+        assertThat(context.getBean(AsyncProcessingConfig.class).isEnabled()).isTrue();
+        JobLauncher jobLauncher = context.getBean(JobLauncher.class);
+        Job job = context.getBean("partitionedJob", Job.class);
+        JobParameters parameters = new JobParametersBuilder()
+                .addLong("startTime", System.currentTimeMillis())
+                .addString("writeMode", "insert")
+                .toJobParameters();
+
+        JobExecution failed = jobLauncher.run(job, parameters);
+
+        assertThat(failed.getStatus()).isEqualTo(BatchStatus.FAILED);
+        assertThat(written).isNotEmpty().doesNotContain(FAILING_ID);
+        assertThat(written).isEqualTo(ids(1, written.size()));
+
+        failing.set(false);
+        JobExecution restarted = jobLauncher.run(job, parameters);
+
+        assertThat(restarted.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(restarted.getJobInstance().getInstanceId()).isEqualTo(failed.getJobInstance().getInstanceId());
+        // insert mode: a chunk written twice would have failed on duplicate keys
+        assertThat(written).isEqualTo(ids(1, 1000));
+        assertThat(context.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM customers", Long.class))
+                .isEqualTo(1000);
+    }
+
+    private static CustomerJdbcWriter recording(CustomerJdbcWriter writer) {
+        CustomerJdbcWriter recording = spy(writer);
+        try {
+            doAnswer(invocation -> {
+                Chunk<Customer> chunk = invocation.getArgument(0);
+                List<Long> ids = chunk.getItems().stream().map(Customer::getId).toList();
+                if (failing.get() && ids.contains(FAILING_ID)) {
+                    throw new IllegalStateException("Simulated failure writing customer " + FAILING_ID);
+                }
+                invocation.callRealMethod();
+                written.addAll(ids);
+                return null;
+            }).when(recording).write(any(), any());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return recording;
+    }
+
+    /**
+     * Delays items by their id so later reads often finish first.
+     */
+    private static CustomerProcessor reordering(CustomerProcessor processor) {
+        CustomerProcessor reordering = spy(processor);
+        try {
+            doAnswer(invocation -> {
+                Customer customer = invocation.getArgument(0);
+                TimeUnit.MILLISECONDS.sleep(5 - customer.getId() % 5);
+                return invocation.callRealMethod();
+            }).when(reordering).process(any());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return reordering;
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+}
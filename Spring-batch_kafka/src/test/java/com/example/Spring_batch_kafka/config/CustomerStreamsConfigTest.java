@@ -0,0 +1,100 @@
+package com.example.Spring_batch_kafka.config;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.serde.CustomerBinarySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerStreamsConfigTest {
+
+    private static final String TOPIC = "customer-topic";
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, Customer> binaryInput;
+    private TestInputTopic<String, Customer> jsonInput;
+
+    @BeforeEach
+    void setUp() {
+        StreamsBuilder builder = new StreamsBuilder();
+        CustomerStreamsConfig.buildTopology(builder, TOPIC, true, Duration.ofMinutes(1), Duration.ofMinutes(10));
+        Properties config = new Properties();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, "customer-aggregates-test");
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "unused:9092");
+        driver = new TopologyTestDriver(builder.build(), config);
+        binaryInput = driver.createInputTopic(TOPIC, new StringSerializer(), new CustomerBinarySerializer());
+        jsonInput = driver.createInputTopic(TOPIC, new StringSerializer(), new JsonSerializer<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    void countsEachCustomerOnceUnderItsLatestCountryAndGender() {
+        send(binaryInput, customer(1, "Thailand", "Male"), 0);
+        send(binaryInput, customer(2, "Thailand", "Female"), 1);
+        send(jsonInput, customer(3, "Japan", "Female"), 2);
+        send(binaryInput, customer(4, null, "Female"), 3);
+        // customer 1 is sent again after moving to Japan
+        send(binaryInput, customer(1, "Japan", "Male"), 4);
+
+        KeyValueStore<String, Long> byCountry = driver.getKeyValueStore(CustomerStreamsConfig.COUNTRY_STORE);
+        KeyValueStore<String, Long> byGender = driver.getKeyValueStore(CustomerStreamsConfig.GENDER_STORE);
+        assertThat(byCountry.get("Thailand")).isEqualTo(1);
+        assertThat(byCountry.get("Japan")).isEqualTo(2);
+        assertThat(byCountry.get(CustomerStreamsConfig.UNKNOWN)).isEqualTo(1);
+        assertThat(byGender.get("Male")).isEqualTo(1);
+        assertThat(byGender.get("Female")).isEqualTo(3);
+    }
+
+    @Test
+    void countsRecordsPerCountryInTumblingWindows() {
+        send(binaryInput, customer(1, "Thailand", "Male"), 5);
+        send(binaryInput, customer(2, "Thailand", "Female"), 30);
+        send(binaryInput, customer(3, "Japan", "Female"), 50);
+        send(binaryInput, customer(4, "Thailand", "Male"), 65);
+
+        WindowStore<String, Long> rate = driver.getWindowStore(CustomerStreamsConfig.RATE_STORE);
+        assertThat(windows(rate, "Thailand")).containsExactly(
+                KeyValue.pair(START.toEpochMilli(), 2L), KeyValue.pair(START.plusSeconds(60).toEpochMilli(), 1L));
+        assertThat(windows(rate, "Japan")).containsExactly(KeyValue.pair(START.toEpochMilli(), 1L));
+    }
+
+    private static List<KeyValue<Long, Long>> windows(WindowStore<String, Long> store, String country) {
+        List<KeyValue<Long, Long>> windows = new ArrayList<>();
+        try (WindowStoreIterator<Long> iterator = store.fetch(country, START, START.plusSeconds(600))) {
+            iterator.forEachRemaining(windows::add);
+        }
+        return windows;
+    }
+
+    private static void send(TestInputTopic<String, Customer> input, Customer customer, long second) {
+        input.pipeInput(String.valueOf(customer.getId()), customer, START.plusSeconds(second));
+    }
+
+    private static Customer customer(long id, String country, String gender) {
+        return Customer.builder().id(id).firstName("First" + id).lastName("Last" + id).country(country)
+                .gender(gender).build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.Spring_batch_kafka.config;
+
+import com.example.Spring_batch_kafka.SpringBatchKafkaApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaZKBroker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Remote chunking with one manager and two worker contexts on an embedded broker, and a
+ * throughput comparison with partitionedImportCustomers on the manager alone. The processor
+ * sleeps per item, so both runs are bound by processing, not reading.
+ */
+@Slf4j
+class RemoteChunkingIT {
+
+    private static EmbeddedKafkaBroker broker;
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    @BeforeAll
+    static void start() {
+        broker = new EmbeddedKafkaZKBroker(1, true, 4, "customer-chunk-requests", "customer-chunk-replies");
+        broker.afterPropertiesSet();
+        contexts.add(start("manager", "--batch.remote.chunking.enabled=true"));
+        contexts.add(start("worker-1", "--batch.remote.chunking.worker.enabled=true"));
+        contexts.add(start("worker-2", "--batch.remote.chunking.worker.enabled=true"));
+    }
+
+    @AfterAll
+    static void stop() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+        broker.destroy();
+    }
+
+    @Test
+    void remoteChunkingImportsEveryCustomer() throws Exception {
+        ConfigurableApplicationContext manager = contexts.get(0);
+
+        JobExecution partitioned = run(manager, "partitionedJob");
+        JobExecution remote = run(manager, "remoteChunkingJob");
+
+        log.info("partitionedImportCustomers: {} items/s, remoteChunkedImportCustomers: {} items/s",
+                throughput(partitioned), throughput(remote));
+        assertThat(partitioned.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(remote.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        StepExecution step = remote.getStepExecutions().iterator().next();
+        assertThat(step.getReadCount()).isEqualTo(1000);
+        assertThat(step.getWriteCount()).isEqualTo(1000);
+        assertThat(manager.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT COUNT(*) FROM customers WHERE processed_at IS NOT NULL", Long.class)).isEqualTo(1000);
+    }
+
+    private static JobExecution run(ConfigurableApplicationContext context, String job) throws Exception {
+        context.getBean(JdbcTemplate.class).update("DELETE FROM customers");
+        return context.getBean(JobLauncher.class).run(context.getBean(job, Job.class),
+                new JobParametersBuilder()
+                        .addLong("startTime", System.currentTimeMillis())
+                        .addString("writeMode", "upsert")
+                        .toJobParameters());
+    }
+
+    private static long throughput(JobExecution execution) {
+        long items = execution.getStepExecutions().stream()
+                .filter(step -> !step.getStepName().equals("masterStep"))
+                .mapToLong(StepExecution::getWriteCount)
+                .sum();
+        long millis = Duration.between(execution.getStartTime(), execution.getEndTime()).toMillis();
+        return items * 1000 / Math.max(1, millis);
+    }
+
+    private static ConfigurableApplicationContext start(String name, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.datasource.url=jdbc:h2:mem:remote_chunking;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jmx.enabled=false",
+                "--batch.processor.simulated-latency-ms=5",
+                "--spring.application.name=remote-chunking-" + name));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(SpringBatchKafkaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.Spring_batch_kafka.config;
+
+import com.example.Spring_batch_kafka.SpringBatchKafkaApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaZKBroker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * One manager and two worker contexts in one JVM, sharing an embedded Kafka broker and an
+ * in-memory H2 database as they would share Kafka and the batch database across nodes.
+ */
+class RemotePartitioningIT {
+
+    private static EmbeddedKafkaBroker broker;
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    @BeforeAll
+    static void start() {
+        broker = new EmbeddedKafkaZKBroker(1, true, 4,
+                "customer-partition-requests", "customer-partition-replies");
+        broker.afterPropertiesSet();
+        contexts.add(start("manager", "--batch.partition.mode=remote", "--batch.partition.target-bytes=16384"));
+        contexts.add(start("worker-1", "--batch.remote.worker.enabled=true", "--batch.remote.worker.concurrency=2"));
+        contexts.add(start("worker-2", "--batch.remote.worker.enabled=true", "--batch.remote.worker.concurrency=2"));
+    }
+
+    @AfterAll
+    static void stop() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+        broker.destroy();
+    }
+
+    @Test
+    void workersRunEveryPartitionOfTheManagersJob() throws Exception {
+        ConfigurableApplicationContext manager = contexts.get(0);
+        JobExecution execution = manager.getBean(JobLauncher.class).run(
+                manager.getBean("partitionedJob", Job.class),
+                new JobParametersBuilder().addLong("startTime", System.currentTimeMillis()).toJobParameters());
+
+        assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        // Partition results were written by the workers, so read them back from the repository.
+        List<StepExecution> partitions = manager.getBean(JobExplorer.class).getJobExecution(execution.getId())
+                .getStepExecutions().stream()
+                .filter(step -> step.getStepName().startsWith("workerStep:"))
+                .toList();
+        assertThat(partitions).hasSizeGreaterThan(1).allMatch(step -> step.getStatus() == BatchStatus.COMPLETED);
+        assertThat(partitions.stream().mapToLong(StepExecution::getWriteCount).sum()).isEqualTo(1000);
+        assertThat(manager.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM customers", Long.class))
+                .isEqualTo(1000);
+    }
+
+    private static ConfigurableApplicationContext start(String name, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                "--spring.datasource.url=jdbc:h2:mem:remote_partitioning;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jmx.enabled=false",
+                "--batch.processor.simulated-latency-ms=0",
+                "--spring.application.name=remote-partitioning-" + name));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(SpringBatchKafkaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.Spring_batch_kafka.consumer;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.processor.CustomerProcessor;
+import com.example.Spring_batch_kafka.service.ConnectionBudget;
+import com.example.Spring_batch_kafka.writer.CustomerJdbcWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AcknowledgmentBatcherTest {
+
+    @Test
+    void releasesGroupOnceRecordLimitIsReached() {
+        AcknowledgmentBatcher batcher = new AcknowledgmentBatcher(100, 60_000);
+        Acknowledgment first = mock(Acknowledgment.class);
+        Acknowledgment second = mock(Acknowledgment.class);
+
+        batcher.acknowledge(first, 60);
+        verify(first, never()).acknowledge();
+
+        batcher.acknowledge(second, 40);
+        verify(first).acknowledge();
+        verify(second).acknowledge();
+        batcher.shutdown();
+    }
+
+    @Test
+    void releasesPartialGroupAfterMaxInterval() {
+        AcknowledgmentBatcher batcher = new AcknowledgmentBatcher(1000, 200);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        batcher.acknowledge(ack, 1);
+
+        verify(ack, timeout(2000)).acknowledge();
+        batcher.shutdown();
+    }
+
+    @Test
+    void neverAcknowledgesABatchWhoseWriteFailed() throws Exception {
+        AcknowledgmentBatcher batcher = new AcknowledgmentBatcher(1000, 60_000);
+        TopicPartition partition = new TopicPartition("customer-batch-topic", 0);
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer(CustomerBatchPipeline.LISTENER_ID)).thenReturn(container);
+        CustomerProcessor processor = mock(CustomerProcessor.class);
+        when(processor.process(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        CustomerJdbcWriter writer = mock(CustomerJdbcWriter.class);
+        doAnswer(invocation -> {
+            Chunk<Customer> chunk = invocation.getArgument(0);
+            if (chunk.getItems().stream().anyMatch(customer -> customer.getId() == 2)) {
+                throw new DataIntegrityViolationException("rejected");
+            }
+            return null;
+        }).when(writer).write(any(), any());
+        DeadLetterPublisher deadLetters = mock(DeadLetterPublisher.class);
+        doThrow(new IllegalStateException("DLQ unavailable")).when(deadLetters).publish(any(), any(), any(), anyInt());
+        CustomerBatchPipeline pipeline = new CustomerBatchPipeline(processor, writer, registry, batcher,
+                new ConnectionBudget(new SimpleMeterRegistry(), 2, 10, 4), deadLetters,
+                new ResourcelessTransactionManager(), new SimpleMeterRegistry(), 1, 4, 1, "upsert", 0, 1, 60_000, 60_000);
+        Consumer<?, ?> consumer = mock(Consumer.class);
+        Acknowledgment written = mock(Acknowledgment.class);
+        Acknowledgment failed = mock(Acknowledgment.class);
+        Acknowledgment after = mock(Acknowledgment.class);
+
+        pipeline.submit(List.of(customer(1)), Map.of(partition, 0L), written, () -> { }, consumer);
+        pipeline.submit(List.of(customer(2)), Map.of(partition, 1L), failed, () -> { }, consumer);
+        pipeline.submit(List.of(customer(3)), Map.of(partition, 2L), after, () -> { }, consumer);
+        verify(container, timeout(5000).atLeastOnce()).pausePartition(partition);
+        pipeline.shutdown();
+        batcher.flush();
+
+        verify(written).acknowledge();
+        verify(failed, never()).acknowledge();
+        verify(after, never()).acknowledge();
+        batcher.shutdown();
+    }
+
+    private static Customer customer(long id) {
+        return Customer.builder().id(id).build();
+    }
+}
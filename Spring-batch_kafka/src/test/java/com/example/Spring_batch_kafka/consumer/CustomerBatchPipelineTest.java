@@ -0,0 +1,319 @@
+package com.example.Spring_batch_kafka.consumer;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import com.example.Spring_batch_kafka.processor.CustomerProcessor;
+import com.example.Spring_batch_kafka.service.ConnectionBudget;
+import com.example.Spring_batch_kafka.writer.CustomerJdbcWriter;
+import com.example.Spring_batch_kafka.writer.WriteMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomerBatchPipelineTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("customer-batch-topic", 0);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+    private final CustomerJdbcWriter writer = mock(CustomerJdbcWriter.class);
+    private final DeadLetterPublisher deadLetters = mock(DeadLetterPublisher.class);
+    private final Consumer<?, ?> consumer = mock(Consumer.class);
+    private CustomerBatchPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void pausesListenerWhenQueueIsFullAndResumesWhenDrained() throws Exception {
+        pipeline = pipeline(blockingProcessor(), 1);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        submit(customers(1, 5), ack);
+
+        verify(container).pause();
+        release.countDown();
+        verify(ack, timeout(5000)).acknowledge();
+        verify(container, timeout(5000)).resume();
+    }
+
+    @Test
+    void acknowledgesBatchesInSubmissionOrder() throws Exception {
+        CustomerProcessor processor = mock(CustomerProcessor.class);
+        when(processor.process(any())).thenAnswer(invocation -> {
+            Customer customer = invocation.getArgument(0);
+            if (customer.getId() == 1) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return customer;
+        });
+        pipeline = pipeline(processor, 2);
+        List<String> acks = new CopyOnWriteArrayList<>();
+        CountDownLatch acked = new CountDownLatch(2);
+
+        submit(customers(1, 1), () -> { acks.add("first"); acked.countDown(); });
+        submit(customers(2, 2), () -> { acks.add("second"); acked.countDown(); });
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertThat(acks).isEmpty();
+        release.countDown();
+        assertThat(acked.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(acks).containsExactly("first", "second");
+    }
+
+    @Test
+    void failedBatchStopsTheAckChainAndIsRedeliveredFromItsFirstOffset() throws Exception {
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+        AtomicBoolean databaseDown = new AtomicBoolean(true);
+        List<Long> written = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            Chunk<Customer> chunk = invocation.getArgument(0);
+            if (databaseDown.get() && chunk.getItems().stream().anyMatch(customer -> customer.getId() == 1)) {
+                throw new DataIntegrityViolationException("rejected");
+            }
+            written.addAll(chunk.getItems().stream().map(Customer::getId).toList());
+            return null;
+        }).when(writer).write(any(), any());
+        doThrow(new IllegalStateException("DLQ unavailable")).when(deadLetters).publish(any(), any(), any(), anyInt());
+        pipeline = pipeline(passThroughProcessor(), 2);
+        Acknowledgment failed = mock(Acknowledgment.class);
+        Acknowledgment after = mock(Acknowledgment.class);
+
+        submit(customers(1, 2), failed);
+        submit(customers(3, 4), after);
+
+        // the second batch is written, but not acknowledged past the failed one
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(written).containsExactly(3L, 4L));
+        verify(container, timeout(5000).atLeastOnce()).pausePartition(PARTITION);
+        TimeUnit.MILLISECONDS.sleep(300);
+        verify(failed, never()).acknowledge();
+        verify(after, never()).acknowledge();
+
+        // polled before the rewind: dropped, then the consumer seeks back to the failed batch
+        Acknowledgment stale = mock(Acknowledgment.class);
+        submit(customers(5, 6), stale);
+        verify(consumer).seek(PARTITION, 0L);
+        verify(container).resumePartition(PARTITION);
+        assertThat(written).doesNotContain(5L, 6L);
+
+        databaseDown.set(false);
+        Acknowledgment redelivered = mock(Acknowledgment.class);
+        submit(customers(1, 6), redelivered);
+        verify(redelivered, timeout(5000)).acknowledge();
+        verify(stale, never()).acknowledge();
+    }
+
+    @Test
+    void idleConsumerRedeliversOnceTheBackoffHasPassed() throws Exception {
+        doThrow(new DataIntegrityViolationException("rejected")).when(writer).write(any(), any());
+        doThrow(new IllegalStateException("DLQ unavailable")).when(deadLetters).publish(any(), any(), any(), anyInt());
+        pipeline = pipeline(passThroughProcessor(), 2);
+        ConsumerSeekAware.ConsumerSeekCallback callback = mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+
+        submit(customers(3, 4), mock(Acknowledgment.class));
+        verify(container, timeout(5000).atLeastOnce()).pausePartition(PARTITION);
+        pipeline.onIdle(Map.of(PARTITION, 10L), callback);
+        verify(callback, never()).seek(any(), anyInt(), anyLong());
+
+        TimeUnit.MILLISECONDS.sleep(300);
+        pipeline.onIdle(Map.of(PARTITION, 10L), callback);
+        verify(callback).seek(PARTITION.topic(), PARTITION.partition(), 2L);
+    }
+
+    @Test
+    void commitsAroundAPoisonRecordAndDeadLettersItAfterItsOwnRetries() throws Exception {
+        List<Long> written = rejectingWriter(3, true);
+        pipeline = pipeline(passThroughProcessor(), 2);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        submit(customers(1, 5), ack);
+
+        verify(ack, timeout(5000)).acknowledge();
+        assertThat(written).containsExactly(1L, 2L, 4L, 5L);
+        // the batch, its good prefix, the poison record twice more, the rest
+        verify(writer, times(5)).write(any(), eq(WriteMode.UPSERT));
+        verify(deadLetters).publish(argThat(customer -> customer.getId() == 3), any(), eq("write"), eq(3));
+    }
+
+    @Test
+    void bisectsWhenTheDriverDoesNotReportTheFailingRecord() throws Exception {
+        List<Long> written = rejectingWriter(3, false);
+        pipeline = pipeline(passThroughProcessor(), 2);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        submit(customers(1, 5), ack);
+
+        verify(ack, timeout(5000)).acknowledge();
+        assertThat(written).containsExactly(1L, 2L, 4L, 5L);
+        verify(deadLetters).publish(argThat(customer -> customer.getId() == 3), any(), eq("write"), eq(3));
+    }
+
+    @Test
+    void batchIsNotAcknowledgedWhenItsDeadLetterCannotBePublished() throws Exception {
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+        List<Long> written = rejectingWriter(3, true);
+        doThrow(new BatchProcessingException("DLQ unavailable")).when(deadLetters).publish(any(), any(), any(), anyInt());
+        pipeline = pipeline(passThroughProcessor(), 2);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        submit(customers(1, 5), ack);
+
+        verify(container, timeout(5000)).pausePartition(PARTITION);
+        assertThat(written).containsExactly(1L, 2L);
+        TimeUnit.MILLISECONDS.sleep(300);
+        verify(ack, never()).acknowledge();
+
+        doNothing().when(deadLetters).publish(any(), any(), any(), anyInt());
+        submit(customers(6, 6), mock(Acknowledgment.class));
+        verify(consumer).seek(PARTITION, 0L);
+        Acknowledgment redelivered = mock(Acknowledgment.class);
+        submit(customers(1, 5), redelivered);
+        verify(redelivered, timeout(5000)).acknowledge();
+        verify(deadLetters, times(2)).publish(argThat(customer -> customer.getId() == 3), any(), eq("write"), eq(3));
+    }
+
+    @Test
+    void transientOutageIsRedeliveredInsteadOfDeadLettered() throws Exception {
+        AtomicBoolean databaseDown = new AtomicBoolean(true);
+        List<Long> written = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            if (databaseDown.get()) {
+                throw new CannotGetJdbcConnectionException("Connection refused");
+            }
+            Chunk<Customer> chunk = invocation.getArgument(0);
+            written.addAll(chunk.getItems().stream().map(Customer::getId).toList());
+            return null;
+        }).when(writer).write(any(), any());
+        pipeline = pipeline(passThroughProcessor(), 2);
+        Acknowledgment ack = mock(Acknowledgment.class);
+        ConsumerSeekAware.ConsumerSeekCallback callback = mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+
+        submit(customers(1, 4), ack);
+
+        verify(container, timeout(5000)).pausePartition(PARTITION);
+        // no per-record retries or bisecting against a database that is down
+        verify(writer, times(1)).write(any(), any());
+        databaseDown.set(false);
+        TimeUnit.MILLISECONDS.sleep(300);
+        pipeline.onIdle(Map.of(PARTITION, 4L), callback);
+        verify(callback).seek(PARTITION.topic(), PARTITION.partition(), 0L);
+
+        Acknowledgment redelivered = mock(Acknowledgment.class);
+        submit(customers(1, 4), redelivered);
+        verify(redelivered, timeout(5000)).acknowledge();
+        assertThat(written).containsExactly(1L, 2L, 3L, 4L);
+        verify(ack, never()).acknowledge();
+        verify(deadLetters, never()).publish(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void failedIndexReadsTheUpdateCounts() {
+        int failed = Statement.EXECUTE_FAILED;
+        assertThat(CustomerBatchPipeline.failedIndex(batchFailure(1, 1), 5)).isEqualTo(2);
+        assertThat(CustomerBatchPipeline.failedIndex(batchFailure(1, failed, 1), 3)).isEqualTo(1);
+        assertThat(CustomerBatchPipeline.failedIndex(batchFailure(failed, failed, failed), 3)).isEqualTo(-1);
+        assertThat(CustomerBatchPipeline.failedIndex(new IllegalStateException("no counts"), 3)).isEqualTo(-1);
+        assertThat(CustomerBatchPipeline.failedIndex(new IllegalStateException("single"), 1)).isZero();
+    }
+
+    /**
+     * Fails every write containing the given id and records the ids of the writes that succeed.
+     */
+    private List<Long> rejectingWriter(long poisonId, boolean reportIndex) throws Exception {
+        List<Long> written = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            Chunk<Customer> chunk = invocation.getArgument(0);
+            List<Long> ids = chunk.getItems().stream().map(Customer::getId).toList();
+            int index = ids.indexOf(poisonId);
+            if (index >= 0) {
+                throw reportIndex ? batchFailure(new int[index]) : new DataIntegrityViolationException("rejected");
+            }
+            written.addAll(ids);
+            return null;
+        }).when(writer).write(any(), any());
+        return written;
+    }
+
+    private static DataIntegrityViolationException batchFailure(int... updateCounts) {
+        return new DataIntegrityViolationException("rejected", new BatchUpdateException(updateCounts));
+    }
+
+    private CustomerProcessor passThroughProcessor() throws Exception {
+        CustomerProcessor processor = mock(CustomerProcessor.class);
+        when(processor.process(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        return processor;
+    }
+
+    /**
+     * Submits the customers as if polled from PARTITION, customer n at offset n - 1.
+     */
+    private void submit(List<Customer> customers, Acknowledgment acknowledgment) {
+        pipeline.submit(customers, Map.of(PARTITION, customers.get(0).getId() - 1), acknowledgment, () -> { },
+                consumer);
+    }
+
+    private CustomerBatchPipeline pipeline(CustomerProcessor processor, int poolSize) {
+        KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer(CustomerBatchPipeline.LISTENER_ID)).thenReturn(container);
+        return new CustomerBatchPipeline(processor, writer, registry,
+                new AcknowledgmentBatcher(1, 1000), new ConnectionBudget(new SimpleMeterRegistry(), 2, 10, 4), deadLetters,
+                new ResourcelessTransactionManager(),
+                new SimpleMeterRegistry(), poolSize, 4, 2, "upsert", 2, 1, 200, 1000);
+    }
+
+    private CustomerProcessor blockingProcessor() throws Exception {
+        CustomerProcessor processor = mock(CustomerProcessor.class);
+        when(processor.process(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        return processor;
+    }
+
+    private static List<Customer> customers(long from, long to) {
+        return LongStream.rangeClosed(from, to).mapToObj(id -> Customer.builder().id(id).build()).toList();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.Spring_batch_kafka.consumer;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeadLetterPublisherTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void throwsWhenTheDeadLetterCannotBeSent() {
+        KafkaTemplate<String, Customer> template = mock(KafkaTemplate.class);
+        when(template.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker unavailable")));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeadLetterPublisher publisher = new DeadLetterPublisher(template, registry, true, "customer-topic-dlq");
+
+        assertThatThrownBy(() -> publisher.publish(Customer.builder().id(7L).build(),
+                new IllegalStateException("rejected"), "write", 3))
+                .isInstanceOf(BatchProcessingException.class)
+                .hasRootCauseInstanceOf(TimeoutException.class);
+        assertThat(registry.counter("kafka.consumer.dlq", "stage", "write").count()).isZero();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.Spring_batch_kafka.consumer;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedeliveryFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RedeliveryFilter filter = new RedeliveryFilter(registry, true, 1024, 3600);
+
+    @Test
+    void redeliveredRecordsAreDroppedOnceTheirWriteCommitted() {
+        List<Customer> polled = List.of(customer(1), customer(2), customer(3));
+        List<String> topics = List.of("customers", "customers", "customers");
+
+        RedeliveryFilter.Batch first = filter.select(polled, topics, List.of(0, 0, 1), List.of(10L, 11L, 10L));
+        assertThat(first.customers()).hasSize(3);
+        filter.persisted(first);
+
+        RedeliveryFilter.Batch redelivered = filter.select(
+                List.of(customer(2), customer(3), customer(4)), topics, List.of(0, 1, 1), List.of(11L, 10L, 11L));
+        assertThat(redelivered.customers()).extracting(Customer::getId).containsExactly(4L);
+        assertThat(registry.get("kafka.consumer.dedup").tag("result", "hit").counter().count()).isEqualTo(2);
+        assertThat(filter.isPersisted("customers", 0, 10, customer(1))).isTrue();
+        assertThat(filter.isPersisted("other-topic", 0, 10, customer(1))).isFalse();
+    }
+
+    @Test
+    void sameFingerprintForAnotherCustomerIsAFalsePositive() {
+        filter.persisted("customers", 0, 10, customer(1));
+
+        assertThat(filter.isPersisted("customers", 0, 10, customer(99))).isFalse();
+        assertThat(registry.get("kafka.consumer.dedup").tag("result", "false-positive").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void disabledFilterPassesEverything() {
+        RedeliveryFilter disabled = new RedeliveryFilter(registry, false, 1024, 3600);
+        disabled.persisted("customers", 0, 10, customer(1));
+
+        assertThat(disabled.isPersisted("customers", 0, 10, customer(1))).isFalse();
+    }
+
+    @Test
+    void entriesExpireAndAFullSetEvictsTheOldest() {
+        OffHeapRecordSet set = new OffHeapRecordSet(8);
+        set.put(1, 100, 1_000, 0);
+        assertThat(set.lookup(1, 100, 999)).isEqualTo(OffHeapRecordSet.Lookup.HIT);
+        assertThat(set.lookup(1, 100, 1_000)).isEqualTo(OffHeapRecordSet.Lookup.MISS);
+
+        // 8 slots, all live: the 9th entry replaces the one closest to expiry
+        for (long fingerprint = 10; fingerprint < 18; fingerprint++) {
+            assertThat(set.put(fingerprint, fingerprint, 5_000 + fingerprint, 2_000)).isFalse();
+        }
+        assertThat(set.put(99, 99, 9_000, 2_000)).isTrue();
+        assertThat(set.lookup(99, 99, 2_000)).isEqualTo(OffHeapRecordSet.Lookup.HIT);
+        assertThat(set.lookup(10, 10, 2_000)).isEqualTo(OffHeapRecordSet.Lookup.MISS);
+        assertThat(set.lookup(11, 11, 2_000)).isEqualTo(OffHeapRecordSet.Lookup.HIT);
+    }
+
+    private static Customer customer(long id) {
+        return Customer.builder().id(id).build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.Spring_batch_kafka.listener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChunkSizeControllerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ChunkSizeController controller = new ChunkSizeController(registry, true, 100, 10, 1000);
+
+    @Test
+    void startsWithTheJobParameterOrTheStepDefault() {
+        JobParameters none = new JobParameters();
+        JobParameters requested = new JobParametersBuilder().addLong("chunkSize", 200L).toJobParameters();
+        JobParameters tooLarge = new JobParametersBuilder().addLong("chunkSize", 20_000L).toJobParameters();
+        JobParameters invalid = new JobParametersBuilder().addLong("chunkSize", 0L).toJobParameters();
+
+        assertThat(controller.initialSize(none, 50)).isEqualTo(50);
+        assertThat(controller.initialSize(requested, 50)).isEqualTo(200);
+        assertThat(controller.initialSize(new JobParametersBuilder().addString("chunkSize", "300").toJobParameters(), 50))
+                .isEqualTo(300);
+        assertThat(controller.initialSize(tooLarge, 50)).isEqualTo(1000);
+        assertThat(new ChunkSizeController(registry, false, 100, 10, 1000).initialSize(tooLarge, 50))
+                .isEqualTo(20_000);
+        assertThatThrownBy(() -> controller.initialSize(invalid, 50)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void movesTowardTheTargetLatencyInBoundedSteps() {
+        // target 100 ms: 1 ms per item wants 100 items
+        assertThat(controller.next(100, 1_000_000)).isEqualTo(100);
+        assertThat(controller.next(90, 1_000_000)).isEqualTo(90);
+        assertThat(controller.next(20, 1_000_000)).isEqualTo(40);
+        assertThat(controller.next(400, 1_000_000)).isEqualTo(200);
+        assertThat(controller.next(60, 1_000_000)).isEqualTo(100);
+        assertThat(controller.next(800, 1_000)).isEqualTo(1000);
+        assertThat(controller.next(15, 100_000_000)).isEqualTo(10);
+    }
+
+    @Test
+    void policyCompletesChunksAtTheAdaptedSize() throws Exception {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(
+                new JobParametersBuilder().addLong("chunkSize", 20L).toJobParameters());
+        ChunkSizeController.Policy policy = controller.policy(50);
+        policy.beforeStep(stepExecution);
+
+        assertThat(chunkLength(policy)).isEqualTo(20);
+
+        // 20 items in ~1 ms is far below the 100 ms target, so the next chunk doubles
+        policy.beforeChunk(null);
+        stepExecution.setReadCount(20);
+        policy.afterChunk(null);
+
+        assertThat(chunkLength(policy)).isEqualTo(40);
+        assertThat(stepExecution.getExecutionContext().getInt(ChunkSizeController.CHUNK_SIZE_KEY)).isEqualTo(40);
+        assertThat(registry.get("batch.chunk.size").gauge().value()).isEqualTo(40);
+        assertThat(registry.get("batch.chunk.size.adjustments").tag("direction", "up").counter().count())
+                .isEqualTo(1);
+
+        policy.afterStep(stepExecution);
+        assertThat(stepExecution.getExecutionContext().getInt(ChunkSizeController.ADJUSTMENTS_KEY)).isEqualTo(1);
+        assertThat(chunkLength(policy)).isEqualTo(50);
+    }
+
+    @Test
+    void removesThePartitionGaugeWhenThePartitionEnds() {
+        StepExecution partition = MetaDataInstanceFactory.createStepExecution("workerStep:partition4", 9L);
+        ChunkSizeController.Policy policy = controller.policy(50);
+        policy.beforeStep(partition);
+
+        assertThat(registry.get("batch.chunk.size").tag("partition", "partition4").gauge().value()).isEqualTo(50);
+
+        policy.afterStep(partition);
+        assertThat(registry.find("batch.chunk.size").gauges()).isEmpty();
+
+        // the next run of the partition registers it again
+        policy.beforeStep(MetaDataInstanceFactory.createStepExecution("workerStep:partition4", 10L));
+        assertThat(registry.get("batch.chunk.size").tag("partition", "partition4").gauge().value()).isEqualTo(50);
+    }
+
+    private static int chunkLength(ChunkSizeController.Policy policy) {
+        RepeatContext context = policy.start(null);
+        int items = 0;
+        while (!policy.isComplete(context, RepeatStatus.CONTINUABLE)) {
+            policy.update(context);
+            items++;
+        }
+        return items;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.Spring_batch_kafka.listener;
+
+import com.example.Spring_batch_kafka.dto.JobExecutionSummary;
+import com.example.Spring_batch_kafka.repository.JobExecutionQueryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RunningExecutionRegistryTest {
+
+    private final JobExecutionQueryRepository repository = mock(JobExecutionQueryRepository.class);
+    private final RunningExecutionRegistry registry = new RunningExecutionRegistry(repository);
+
+    @Test
+    void tracksCountsAndProgressFromReaderPosition(@TempDir Path dir) throws Exception {
+        Path input = Files.write(dir.resolve("customers.csv"), new byte[1000]);
+        JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution("partitionedJob", 1L, 10L);
+        StepExecution partition = jobExecution.createStepExecution("workerStep:partition0");
+        partition.setId(100L);
+        partition.getExecutionContext().putString("inputFile", input.toString());
+        partition.getExecutionContext().putLong("startOffset", 0);
+        partition.getExecutionContext().putLong("endOffset", 500);
+
+        registry.beforeJob(jobExecution);
+        registry.beforeStep(partition);
+        partition.setReadCount(40);
+        partition.setWriteCount(40);
+        partition.getExecutionContext().putLong("partitionReader.position", 250);
+        registry.afterChunk(new ChunkContext(new StepContext(partition)));
+
+        JobExecutionSummary summary = registry.getRunningExecutions().get(0);
+        assertThat(summary.getExecutionId()).isEqualTo(10L);
+        assertThat(summary.getWriteCount()).isEqualTo(40);
+        assertThat(summary.getProgress()).isEqualTo(0.25);
+        assertThat(registry.getRunningCount()).isEqualTo(1);
+
+        registry.afterJob(jobExecution);
+        assertThat(registry.getRunningExecutions()).isEmpty();
+    }
+
+    @Test
+    void reconcileDropsFinishedAndAddsUntrackedExecutions() {
+        JobExecution finished = MetaDataInstanceFactory.createJobExecution("partitionedJob", 1L, 10L);
+        registry.beforeJob(finished);
+        when(repository.findRunning()).thenReturn(List.of(
+                JobExecutionSummary.builder().executionId(7L).jobName("csvToKafkaJob").status("STARTED").build()));
+
+        registry.reconcile();
+
+        assertThat(registry.getRunningExecutions())
+                .singleElement()
+                .satisfies(summary -> {
+                    assertThat(summary.getExecutionId()).isEqualTo(7L);
+                    assertThat(summary.getLocal()).isFalse();
+                });
+    }
+}
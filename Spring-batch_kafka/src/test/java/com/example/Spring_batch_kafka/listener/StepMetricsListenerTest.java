@@ -0,0 +1,77 @@
+package com.example.Spring_batch_kafka.listener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StepMetricsListenerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StepMetricsListener listener = new StepMetricsListener(registry);
+
+    @Test
+    void recordsItemAndChunkMetersTaggedByPartition() throws Exception {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution("workerStep:partition2", 7L);
+
+        listener.beforeStep(stepExecution);
+        listener.beforeChunk(null);
+        for (int i = 0; i < 3; i++) {
+            listener.beforeRead();
+            listener.afterRead("item");
+        }
+        StepSynchronizationManager.register(stepExecution);
+        try {
+            listener.timed(item -> item).process("item");
+        } finally {
+            StepSynchronizationManager.close();
+        }
+        Chunk<String> chunk = new Chunk<>("a", "b", "c");
+        listener.beforeWrite(chunk);
+        listener.afterWrite(chunk);
+        listener.afterChunk(null);
+
+        assertThat(registry.get("batch.item.read").tag("step", "workerStep").tag("partition", "partition2")
+                .timer().count()).isEqualTo(3);
+        assertThat(registry.get("batch.item.process").tag("partition", "partition2").timer().count()).isEqualTo(1);
+        assertThat(registry.get("batch.chunk.commit").timer().count()).isEqualTo(1);
+
+        stepExecution.setWriteCount(3);
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        listener.afterStep(stepExecution);
+
+        // the partition's histograms go with it; counters and step meters stay
+        assertThat(registry.find("batch.item.read").timers()).isEmpty();
+        assertThat(registry.find("batch.chunk.commit").timers()).isEmpty();
+        assertThat(registry.get("batch.step.items").tag("type", "write").counter().count()).isEqualTo(3);
+        assertThat(registry.get("batch.step.duration").tag("status", "COMPLETED").timer().count()).isEqualTo(1);
+        assertThat(registry.find("batch.step.rollbacks").counter()).isNull();
+    }
+
+    @Test
+    void keepsTheTimersOfStepsThatAreNotPartitions() {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution("csv-to-kafka-step", 3L);
+
+        listener.beforeStep(stepExecution);
+        listener.beforeRead();
+        listener.afterRead("item");
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        listener.afterStep(stepExecution);
+
+        assertThat(registry.get("batch.item.read").tag("partition", "none").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void stepsWithoutPartitionAreTaggedNone() {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution("masterStep", 1L);
+
+        assertThat(StepMetricsListener.tags(stepExecution))
+                .extracting(tag -> tag.getKey() + "=" + tag.getValue())
+                .contains("step=masterStep", "partition=none");
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.Spring_batch_kafka.partitioner;
+
+import com.example.Spring_batch_kafka.reader.ByteRangeItemReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.mapping.PassThroughLineMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerPartitionerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void partitionsCoverEveryRowExactlyOnce() throws Exception {
+        Path csv = writeCsv(500);
+        CustomerPartitioner partitioner = partitioner(csv, 512);
+
+        Map<String, ExecutionContext> partitions = partitioner.partition(0);
+
+        assertThat(partitions.size()).isGreaterThan(50);
+        List<String> lines = new ArrayList<>();
+        for (ExecutionContext context : partitions.values()) {
+            lines.addAll(readAll(csv, context, new ExecutionContext()));
+        }
+        assertThat(lines).hasSize(500).doesNotHaveDuplicates().allMatch(line -> !line.startsWith("id,"));
+    }
+
+    @Test
+    void explicitGridSizeFixesPartitionCount() throws Exception {
+        Path csv = writeCsv(500);
+
+        Map<String, ExecutionContext> partitions = partitioner(csv, 512).partition(4);
+
+        assertThat(partitions).hasSize(4);
+    }
+
+    @Test
+    void smallFileProducesSinglePartition() throws Exception {
+        Path csv = writeCsv(10);
+
+        Map<String, ExecutionContext> partitions = partitioner(csv, 1024 * 1024).partition(0);
+
+        assertThat(partitions).hasSize(1);
+        ExecutionContext context = partitions.values().iterator().next();
+        assertThat(context.getLong("endOffset")).isEqualTo(Files.size(csv));
+    }
+
+    @Test
+    void restartResumesFromSavedPosition() throws Exception {
+        Path csv = writeCsv(20);
+        ExecutionContext partition = partitioner(csv, 1024 * 1024).partition(0).values().iterator().next();
+
+        ByteRangeItemReader<String> reader = reader(csv, partition);
+        ExecutionContext stepContext = new ExecutionContext();
+        reader.open(stepContext);
+        for (int i = 0; i < 7; i++) {
+            reader.read();
+        }
+        reader.update(stepContext);
+        reader.close();
+
+        List<String> remaining = readAll(csv, partition, stepContext);
+
+        assertThat(remaining).hasSize(13);
+        assertThat(remaining.get(0)).startsWith("8,");
+    }
+
+    private CustomerPartitioner partitioner(Path csv, long targetBytes) {
+        CustomerPartitioner partitioner = new CustomerPartitioner();
+        ReflectionTestUtils.setField(partitioner, "inputFile", csv.toString());
+        ReflectionTestUtils.setField(partitioner, "targetPartitionBytes", targetBytes);
+        ReflectionTestUtils.setField(partitioner, "maxPartitions", 256);
+        return partitioner;
+    }
+
+    private List<String> readAll(Path csv, ExecutionContext partition, ExecutionContext stepContext) throws Exception {
+        ByteRangeItemReader<String> reader = reader(csv, partition);
+        List<String> lines = new ArrayList<>();
+        reader.open(stepContext);
+        String line;
+        while ((line = reader.read()) != null) {
+            lines.add(line);
+        }
+        reader.close();
+        return lines;
+    }
+
+    private ByteRangeItemReader<String> reader(Path csv, ExecutionContext partition) {
+        ByteRangeItemReader<String> reader = new ByteRangeItemReader<>(csv,
+                partition.getLong("startOffset"), partition.getLong("endOffset"), new PassThroughLineMapper());
+        reader.setName("testReader");
+        return reader;
+    }
+
+    private Path writeCsv(int rows) throws Exception {
+        StringBuilder csv = new StringBuilder("id,firstName,lastName,email,gender,contactNo,country,dob\n");
+        for (int i = 1; i <= rows; i++) {
+            csv.append(i).append(",First").append(i).append(",Last").append(i)
+                    .append(",user").append(i).append("@example.com,Female,555-0100,Brazil,01/01/1990\n");
+        }
+        Path file = tempDir.resolve("customers.csv");
+        Files.writeString(file, csv.toString(), StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.Spring_batch_kafka.processor;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.repository.CustomerRowHashRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnchangedCustomerFilterTest {
+
+    private EmbeddedDatabase database;
+    private UnchangedCustomerFilter filter;
+    private final List<Customer> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE customer_row_hashes (id BIGINT PRIMARY KEY, row_hash BIGINT NOT NULL)");
+        filter = new UnchangedCustomerFilter(new CustomerRowHashRepository(jdbcTemplate), true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void secondRunOnlyPassesNewAndChangedRows() throws Exception {
+        StepExecution first = run(1L, new JobParameters(), customer(1, "Ann"), customer(2, "Bob"));
+        assertThat(written).extracting(Customer::getId).containsExactly(1L, 2L);
+        assertThat(first.getExecutionContext().getLong(UnchangedCustomerFilter.UNCHANGED_KEY)).isZero();
+
+        written.clear();
+        StepExecution second = run(2L, new JobParameters(), customer(1, "Ann"), customer(2, "Bobby"), customer(3, "Cy"));
+        assertThat(written).extracting(Customer::getId).containsExactly(2L, 3L);
+        assertThat(second.getExecutionContext().getLong(UnchangedCustomerFilter.UNCHANGED_KEY)).isEqualTo(1);
+
+        written.clear();
+        run(3L, new JobParametersBuilder().addString("incremental", "false").toJobParameters(),
+                customer(1, "Ann"), customer(2, "Bobby"), customer(3, "Cy"));
+        assertThat(written).hasSize(3);
+    }
+
+    @Test
+    void indexGrowsPastItsExpectedSize() {
+        RowHashIndex index = new RowHashIndex(2);
+        for (long id = 0; id < 1000; id++) {
+            index.put(id, id * 31);
+        }
+        index.put(5, 7);
+
+        assertThat(index.size()).isEqualTo(1000);
+        assertThat(index.matches(999, 999 * 31)).isTrue();
+        assertThat(index.matches(5, 7)).isTrue();
+        assertThat(index.matches(5, 5 * 31)).isFalse();
+        assertThat(index.matches(1000, 0)).isFalse();
+    }
+
+    private StepExecution run(long jobExecutionId, JobParameters parameters, Customer... customers) throws Exception {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(
+                MetaDataInstanceFactory.createJobExecution("job", 1L, jobExecutionId, parameters), "step", jobExecutionId);
+        ItemWriter<Customer> writer = filter.recording(chunk -> written.addAll(chunk.getItems()));
+        StepSynchronizationManager.register(stepExecution);
+        try {
+            filter.beforeStep(stepExecution);
+            Chunk<Customer> chunk = new Chunk<>();
+            for (Customer customer : customers) {
+                Customer changed = filter.process(customer);
+                if (changed != null) {
+                    chunk.add(changed);
+                }
+            }
+            writer.write(chunk);
+            filter.afterStep(stepExecution);
+        } finally {
+            StepSynchronizationManager.close();
+        }
+        return stepExecution;
+    }
+
+    private static Customer customer(long id, String firstName) {
+        return Customer.builder().id(id).firstName(firstName).country("Peru").build();
+    }
+}
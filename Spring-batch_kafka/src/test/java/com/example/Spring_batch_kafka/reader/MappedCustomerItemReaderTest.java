@@ -0,0 +1,102 @@
+package com.example.Spring_batch_kafka.reader;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedCustomerItemReaderTest {
+
+    private static final Path CUSTOMERS_CSV = Paths.get("src/main/resources/customers.csv");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void matchesBeanWrapperReaderOnCustomersCsv() throws Exception {
+        FlatFileItemReader<Customer> flatReader = new FlatFileItemReader<>();
+        flatReader.setResource(new FileSystemResource(CUSTOMERS_CSV));
+        flatReader.setLinesToSkip(1);
+        flatReader.setLineMapper(CustomerReaderFactory.beanWrapperLineMapper());
+        flatReader.setName("flat");
+
+        MappedCustomerItemReader mappedReader = new MappedCustomerItemReader(CUSTOMERS_CSV);
+        mappedReader.setName("mapped");
+        mappedReader.setWindowSize(4096);
+
+        List<Customer> expected = readAll(flatReader);
+        List<Customer> actual = readAll(mappedReader);
+
+        assertThat(actual).hasSize(1000).isEqualTo(expected);
+    }
+
+    @Test
+    void readsOnlyItsByteRange() throws Exception {
+        Path csv = write("""
+                id,firstName,lastName,email,gender,contactNo,country,dob
+                1,Ann,Lee,a@x.com,Female,555,Peru,01/01/1990
+                2,Bob,Ray,b@x.com,Male,556,Chile,02/02/1991
+                3,Cid,Fox,c@x.com,Male,557,Japan,03/03/1992
+                """);
+        long start = Files.readString(csv).indexOf("2,Bob");
+        long end = Files.readString(csv).indexOf("3,Cid");
+
+        MappedCustomerItemReader reader = new MappedCustomerItemReader(csv, start, end);
+        reader.setName("range");
+
+        List<Customer> customers = readAll(reader);
+
+        assertThat(customers).extracting(Customer::getId).containsExactly(2L);
+    }
+
+    @Test
+    void handlesQuotesCarriageReturnsAndMissingColumns() throws Exception {
+        Path csv = write("id,firstName,lastName,email,gender,contactNo,country,dob\r\n"
+                + "7,\"Mary, Jo\",\"O\"\"Neil\",m@x.com,Female,555,\"Korea, South\",01/01/1990\r\n"
+                + "8,Tim,Short\r\n"
+                + "9,Last,Line,l@x.com,Male,1,Peru,09/09/1999");
+
+        MappedCustomerItemReader reader = new MappedCustomerItemReader(csv);
+        reader.setName("quoted");
+
+        List<Customer> customers = readAll(reader);
+
+        assertThat(customers).hasSize(3);
+        assertThat(customers.get(0).getFirstName()).isEqualTo("Mary, Jo");
+        assertThat(customers.get(0).getLastName()).isEqualTo("O\"Neil");
+        assertThat(customers.get(0).getCountry()).isEqualTo("Korea, South");
+        assertThat(customers.get(0).getDob()).isEqualTo("01/01/1990");
+        assertThat(customers.get(1).getLastName()).isEqualTo("Short");
+        assertThat(customers.get(1).getEmail()).isNull();
+        assertThat(customers.get(2).getDob()).isEqualTo("09/09/1999");
+    }
+
+    private List<Customer> readAll(AbstractItemCountingItemStreamItemReader<Customer> reader) throws Exception {
+        List<Customer> customers = new ArrayList<>();
+        reader.open(new ExecutionContext());
+        Customer customer;
+        while ((customer = reader.read()) != null) {
+            customers.add(customer);
+        }
+        reader.close();
+        return customers;
+    }
+
+    private Path write(String content) throws Exception {
+        Path file = tempDir.resolve("customers.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.Spring_batch_kafka.repository;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.service.CustomerExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerQueryRepositoryTest {
+
+    private EmbeddedDatabase database;
+    private CustomerQueryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE customers (id BIGINT PRIMARY KEY,"
+                + " first_name VARCHAR(255), last_name VARCHAR(255), email VARCHAR(255), gender VARCHAR(255),"
+                + " contact_no VARCHAR(255), country VARCHAR(255), dob VARCHAR(255),"
+                + " processed_at TIMESTAMP(6), processed_by VARCHAR(255))");
+        for (int id = 1; id <= 10; id++) {
+            jdbcTemplate.update("INSERT INTO customers (id, first_name, country) VALUES (?, ?, ?)",
+                    id, "name" + id, id % 2 == 0 ? "Thailand" : "Japan");
+        }
+        jdbcTemplate.update("UPDATE customers SET first_name = 'Smith, \"Jr\"' WHERE id = 4");
+        repository = new CustomerQueryRepository(jdbcTemplate, new DataSourceTransactionManager(database), 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void findAfterSeeksOnIdAndFiltersByCountry() {
+        assertThat(repository.findAfter(0, null, 3)).extracting(Customer::getId).containsExactly(1L, 2L, 3L);
+        assertThat(repository.findAfter(3, null, 3)).extracting(Customer::getId).containsExactly(4L, 5L, 6L);
+        assertThat(repository.findAfter(4, "Thailand", 10)).extracting(Customer::getId).containsExactly(6L, 8L, 10L);
+    }
+
+    @Test
+    void streamVisitsEveryRowInIdOrder() {
+        List<Long> ids = new ArrayList<>();
+        repository.stream(7, null, customer -> ids.add(customer.getId()));
+
+        assertThat(ids).containsExactly(8L, 9L, 10L);
+    }
+
+    @Test
+    void exportsNdjsonAndQuotedCsv() throws Exception {
+        CustomerExportService exportService = new CustomerExportService(repository, new ObjectMapper());
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        long rows = exportService.export(CustomerExportService.Format.NDJSON, 8, null, ndjson);
+        assertThat(rows).isEqualTo(2);
+        assertThat(ndjson.toString(StandardCharsets.UTF_8).split("\n"))
+                .hasSize(2)
+                .allSatisfy(line -> assertThat(line).startsWith("{\"id\":"));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.export(CustomerExportService.Format.CSV, 0, "Thailand", csv);
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(6);
+        assertThat(lines[2]).isEqualTo("4,\"Smith, \"\"Jr\"\"\",,,,,Thailand,,,");
+    }
+}
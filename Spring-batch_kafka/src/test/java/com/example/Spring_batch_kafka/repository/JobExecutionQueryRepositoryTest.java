@@ -0,0 +1,111 @@
+package com.example.Spring_batch_kafka.repository;
+
+import com.example.Spring_batch_kafka.config.BatchMetadataIndexInitializer;
+import com.example.Spring_batch_kafka.dto.JobExecutionSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobExecutionQueryRepositoryTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private JobExecutionQueryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:org/springframework/batch/core/schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        repository = new JobExecutionQueryRepository(new NamedParameterJdbcTemplate(database), "BATCH_");
+
+        instance(1, "importJob");
+        instance(2, "exportJob");
+        execution(10, 1, "COMPLETED");
+        step(100, 10, "masterStep", "COMPLETED", 1000, 990, 3);
+        step(101, 10, "workerStep:partition0", "COMPLETED", 500, 495, 1);
+        step(102, 10, "workerStep:partition1", "COMPLETED", 500, 495, 2);
+        execution(11, 2, "FAILED");
+        step(110, 11, "exportStep", "FAILED", 20, 0, 0);
+        execution(12, 1, "STARTED");
+        step(120, 12, "masterStep", "STARTED", 40, 40, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void pagesNewestFirstWithStepTotalsFromManagerSteps() {
+        List<JobExecutionSummary> firstPage = repository.findRecent(null, 2);
+        List<JobExecutionSummary> secondPage = repository.findRecent(firstPage.get(1).getExecutionId(), 2);
+
+        assertThat(firstPage).extracting(JobExecutionSummary::getExecutionId).containsExactly(12L, 11L);
+        assertThat(secondPage).extracting(JobExecutionSummary::getExecutionId).containsExactly(10L);
+        JobExecutionSummary completed = secondPage.get(0);
+        assertThat(completed.getJobName()).isEqualTo("importJob");
+        assertThat(completed.getReadCount()).isEqualTo(1000);
+        assertThat(completed.getWriteCount()).isEqualTo(990);
+        assertThat(completed.getFailureCount()).isEqualTo(3);
+        assertThat(completed.getDuration()).isEqualTo(60_000);
+        assertThat(firstPage.get(1).getFailureCount()).isEqualTo(1);
+    }
+
+    @Test
+    void filtersByJobNameRunningAndStatus() {
+        assertThat(repository.findByJobName("importJob", null, 10))
+                .extracting(JobExecutionSummary::getExecutionId).containsExactly(12L, 10L);
+        assertThat(repository.findRunning()).extracting(JobExecutionSummary::getExecutionId).containsExactly(12L);
+        assertThat(repository.findById(11)).get().extracting(JobExecutionSummary::getStatus).isEqualTo("FAILED");
+        assertThat(repository.findById(99)).isEmpty();
+        assertThat(repository.countByStatus("importJob")).containsEntry("COMPLETED", 1L).containsEntry("STARTED", 1L);
+        assertThat(repository.countJobNames()).isEqualTo(2);
+    }
+
+    @Test
+    void indexInitializerIsIdempotent() {
+        BatchMetadataIndexInitializer initializer = new BatchMetadataIndexInitializer(jdbcTemplate, "BATCH_");
+
+        initializer.run(null);
+        initializer.run(null);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'BATCH_JOB_EXEC_STATUS_IDX'",
+                Integer.class)).isEqualTo(1);
+    }
+
+    private void instance(long id, String jobName) {
+        jdbcTemplate.update("INSERT INTO BATCH_JOB_INSTANCE (JOB_INSTANCE_ID, VERSION, JOB_NAME, JOB_KEY)"
+                + " VALUES (?, 0, ?, ?)", id, jobName, "key" + id);
+    }
+
+    private void execution(long id, long instanceId, String status) {
+        jdbcTemplate.update("INSERT INTO BATCH_JOB_EXECUTION (JOB_EXECUTION_ID, VERSION, JOB_INSTANCE_ID, CREATE_TIME,"
+                + " START_TIME, END_TIME, STATUS) VALUES (?, 0, ?, TIMESTAMP '2024-01-01 10:00:00',"
+                + " TIMESTAMP '2024-01-01 10:00:00', ?, ?)",
+                id, instanceId, "STARTED".equals(status) ? null : Timestamp.valueOf("2024-01-01 10:01:00"),
+                status);
+    }
+
+    private void step(long id, long executionId, String name, String status, int read, int write, int skips) {
+        jdbcTemplate.update("INSERT INTO BATCH_STEP_EXECUTION (STEP_EXECUTION_ID, VERSION, STEP_NAME, JOB_EXECUTION_ID,"
+                + " CREATE_TIME, STATUS, READ_COUNT, WRITE_COUNT, READ_SKIP_COUNT, PROCESS_SKIP_COUNT,"
+                + " WRITE_SKIP_COUNT, COMMIT_COUNT, FILTER_COUNT, ROLLBACK_COUNT)"
+                + " VALUES (?, 0, ?, ?, CURRENT_TIMESTAMP, ?, ?, ?, ?, 0, 0, 0, 0, 0)",
+                id, name, executionId, status, read, write, skips);
+    }
+}
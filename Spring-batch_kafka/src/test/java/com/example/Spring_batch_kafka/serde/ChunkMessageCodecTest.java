@@ -0,0 +1,67 @@
+package com.example.Spring_batch_kafka.serde;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.integration.chunk.ChunkRequest;
+import org.springframework.batch.integration.chunk.ChunkResponse;
+import org.springframework.batch.item.Chunk;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkMessageCodecTest {
+
+    private final StepExecution stepExecution = new StepExecution("remoteChunkingStep",
+            new JobExecution(new JobInstance(7L, "remoteChunkedImportCustomers"), 11L, new JobParameters()), 13L);
+
+    @Test
+    void roundTripsRequestWithStepIdentityAndItems() {
+        Customer first = Customer.builder().id(1).firstName("Ann").gender("Female").country("Peru").build();
+        Customer second = Customer.builder().id(2).firstName("Bo").processedAt(new Date(1_700_000_000_000L)).build();
+
+        ChunkRequest<Customer> decoded = ChunkMessageCodec.decodeRequest(ChunkMessageCodec.encodeRequest(
+                new ChunkRequest<>(5, new Chunk<>(List.of(first, second)), 7L, stepExecution.createStepContribution())));
+
+        assertThat(decoded.getSequence()).isEqualTo(5);
+        assertThat(decoded.getJobId()).isEqualTo(7L);
+        assertThat(List.<Customer>copyOf(decoded.getItems().getItems())).containsExactly(first, second);
+        StepExecution step = decoded.getStepContribution().getStepExecution();
+        assertThat(step.getId()).isEqualTo(13L);
+        assertThat(step.getJobExecutionId()).isEqualTo(11L);
+        assertThat(step.getStepName()).isEqualTo("remoteChunkingStep");
+        assertThat(step.getJobExecution().getJobInstance().getJobName()).isEqualTo("remoteChunkedImportCustomers");
+    }
+
+    @Test
+    void roundTripsResponseCounts() {
+        StepContribution contribution = stepExecution.createStepContribution();
+        contribution.incrementWriteCount(98);
+        contribution.incrementFilterCount(1);
+        contribution.incrementProcessSkipCount();
+        contribution.setExitStatus(ExitStatus.FAILED.addExitDescription("boom"));
+
+        ChunkResponse decoded = ChunkMessageCodec.decodeResponse(ChunkMessageCodec.encodeResponse(
+                new ChunkResponse(false, 5, 7L, contribution, "failed", true)));
+
+        assertThat(decoded.isSuccessful()).isFalse();
+        assertThat(decoded.isRedelivered()).isTrue();
+        assertThat(decoded.getSequence()).isEqualTo(5);
+        assertThat(decoded.getJobId()).isEqualTo(7L);
+        assertThat(decoded.getMessage()).isEqualTo("failed");
+        StepContribution counts = decoded.getStepContribution();
+        assertThat(counts.getWriteCount()).isEqualTo(98);
+        assertThat(counts.getFilterCount()).isEqualTo(1);
+        assertThat(counts.getProcessSkipCount()).isEqualTo(1);
+        assertThat(counts.getExitStatus().getExitCode()).isEqualTo(ExitStatus.FAILED.getExitCode());
+        assertThat(counts.getExitStatus().getExitDescription()).isEqualTo("boom");
+        assertThat(counts.getStepExecution().getId()).isEqualTo(13L);
+    }
+}
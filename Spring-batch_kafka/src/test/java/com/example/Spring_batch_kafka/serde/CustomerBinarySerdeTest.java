@@ -0,0 +1,69 @@
+package com.example.Spring_batch_kafka.serde;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerBinarySerdeTest {
+
+    private final CustomerBinarySerializer serializer = new CustomerBinarySerializer();
+    private final CustomerBinaryDeserializer deserializer = new CustomerBinaryDeserializer();
+
+    @Test
+    void roundTripsDictionaryAndLiteralValues() {
+        Customer known = customer(42, "Female", "Brazil");
+        Customer unknown = customer(Long.MAX_VALUE, "Other", "Côte d'Ivoire");
+        unknown.setFirstName("Zoë");
+
+        assertThat(deserializer.deserialize("t", serializer.serialize("t", known))).isEqualTo(known);
+        assertThat(deserializer.deserialize("t", serializer.serialize("t", unknown))).isEqualTo(unknown);
+    }
+
+    @Test
+    void roundTripsNulls() {
+        Customer customer = Customer.builder().id(-7).build();
+
+        assertThat(deserializer.deserialize("t", serializer.serialize("t", customer))).isEqualTo(customer);
+    }
+
+    @Test
+    void readsJsonWrittenBeforeTheSwitch() {
+        Customer customer = customer(3, "Male", "Peru");
+        try (JsonSerializer<Customer> json = new JsonSerializer<>()) {
+            assertThat(deserializer.deserialize("t", json.serialize("t", customer))).isEqualTo(customer);
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersionAndTruncatedRecords() {
+        byte[] data = serializer.serialize("t", customer(1, "Male", "Peru"));
+
+        assertThatThrownBy(() -> deserializer.deserialize("t", Arrays.copyOf(data, data.length - 3)))
+                .isInstanceOf(SerializationException.class);
+        data[0] = 9;
+        assertThatThrownBy(() -> deserializer.deserialize("t", data))
+                .isInstanceOf(SerializationException.class).hasMessageContaining("version 9");
+    }
+
+    private static Customer customer(long id, String gender, String country) {
+        return Customer.builder()
+                .id(id)
+                .firstName("Ann")
+                .lastName("Lee")
+                .email("ann@example.com")
+                .gender(gender)
+                .contactNo("555-0100")
+                .country(country)
+                .dob("24/06/2012")
+                .processedAt(new Date(1_700_000_000_000L))
+                .processedBy("batch-partition-1")
+                .build();
+    }
+}
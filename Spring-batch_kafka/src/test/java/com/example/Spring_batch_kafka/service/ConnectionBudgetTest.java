@@ -0,0 +1,71 @@
+package com.example.Spring_batch_kafka.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionBudgetTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void budgetDefaultsToPoolSizeLessReserved() {
+        assertThat(new ConnectionBudget(registry, 0, 20, 4).getConnections()).isEqualTo(16);
+        assertThat(new ConnectionBudget(registry, 0, 3, 4).getConnections()).isEqualTo(1);
+        assertThat(new ConnectionBudget(registry, 6, 20, 4).getConnections()).isEqualTo(6);
+    }
+
+    @Test
+    void workBeyondTheBudgetWaitsAndIsReported() throws Exception {
+        ConnectionBudget budget = new ConnectionBudget(registry, 1, 10, 4);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> partition = CompletableFuture.runAsync(() -> budget.run("partition", () -> {
+            holding.countDown();
+            await(release);
+        }));
+        holding.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> consumer = CompletableFuture.supplyAsync(() -> budget.call("kafka-batch", () -> "written"));
+
+        Thread.sleep(100);
+        assertThat(consumer).isNotDone();
+        assertThat(budget.getInUse()).isEqualTo(1);
+        assertThat(budget.getStatistics()).containsEntry("waiting", 1);
+
+        release.countDown();
+        partition.get(5, TimeUnit.SECONDS);
+        assertThat(consumer.get(5, TimeUnit.SECONDS)).isEqualTo("written");
+        assertThat(budget.getInUse()).isZero();
+
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> clients = (Map<String, Map<String, Object>>) budget.getStatistics().get("clients");
+        assertThat((long) clients.get("kafka-batch").get("waitMs")).isGreaterThanOrEqualTo(100);
+        assertThat((long) clients.get("partition").get("workMs")).isGreaterThanOrEqualTo(100);
+        assertThat(registry.get("batch.db.budget.wait").tag("client", "kafka-batch").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void nestedWorkOnTheSameThreadDoesNotTakeASecondPermit() {
+        ConnectionBudget budget = new ConnectionBudget(registry, 1, 10, 4);
+
+        String result = budget.call("partition", () -> budget.call("kafka-batch", () -> "nested"));
+
+        assertThat(result).isEqualTo("nested");
+        assertThat(budget.getInUse()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
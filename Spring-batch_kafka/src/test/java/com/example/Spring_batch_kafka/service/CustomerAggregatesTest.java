@@ -0,0 +1,122 @@
+package com.example.Spring_batch_kafka.service;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.listener.RunningExecutionRegistry;
+import com.example.Spring_batch_kafka.repository.CustomerAggregateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerAggregatesTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private CustomerAggregateRepository aggregateRepository;
+    private CustomerAggregates aggregates;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE customers (id BIGINT PRIMARY KEY, gender VARCHAR(255),"
+                + " country VARCHAR(255), processed_at TIMESTAMP(6))");
+        jdbcTemplate.execute("CREATE TABLE customer_aggregates (dimension VARCHAR(16), dim_value VARCHAR(255),"
+                + " shard INT, customer_count BIGINT NOT NULL, PRIMARY KEY (dimension, dim_value, shard))");
+        jdbcTemplate.update("INSERT INTO customers VALUES (1, 'Female', 'Peru', CURRENT_TIMESTAMP),"
+                + " (2, 'Male', 'Peru', NULL), (3, 'Male', NULL, NULL)");
+        aggregateRepository = new CustomerAggregateRepository(new NamedParameterJdbcTemplate(jdbcTemplate));
+        aggregates = new CustomerAggregates(aggregateRepository, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void buildsFromExistingCustomersOnceThenCountsIncrementally() {
+        aggregates.run(null);
+
+        assertThat(aggregates.getTotal()).isEqualTo(3);
+        assertThat(aggregates.getProcessed()).isEqualTo(1);
+        assertThat(aggregates.getByCountry()).containsExactly(Map.entry("", 1L), Map.entry("Peru", 2L));
+        assertThat(aggregates.getByGender()).containsExactly(Map.entry("Female", 1L), Map.entry("Male", 2L));
+
+        Customer moved = Customer.builder().id(2).gender("Male").country("Chile").processedAt(new Date()).build();
+        Customer previous = Customer.builder().id(2).gender("Male").country("Peru").build();
+        aggregates.recordWrites(List.of(moved), Map.of(2L, previous));
+        aggregates.recordDelete(Customer.builder().id(3).gender("Male").build());
+
+        aggregates.run(null);
+        assertThat(aggregates.getTotal()).isEqualTo(2);
+        assertThat(aggregates.getProcessed()).isEqualTo(2);
+        assertThat(aggregates.getByCountry()).containsExactly(Map.entry("Chile", 1L), Map.entry("Peru", 1L));
+        assertThat(aggregates.getByGender()).containsExactly(Map.entry("Female", 1L), Map.entry("Male", 1L));
+    }
+
+    @Test
+    void customerRepeatedInOneWriteIsCountedOnce() {
+        aggregates.run(null);
+
+        aggregates.recordWrites(List.of(customer(4, "Chile"), customer(4, "Japan")), Map.of());
+
+        assertThat(aggregates.getTotal()).isEqualTo(4);
+        assertThat(aggregates.getByCountry()).containsExactly(
+                Map.entry("", 1L), Map.entry("Japan", 1L), Map.entry("Peru", 2L));
+    }
+
+    @Test
+    void reconcilerCorrectsDriftFromCustomers() {
+        aggregates.run(null);
+        jdbcTemplate.update("INSERT INTO customers VALUES (4, 'Female', 'Chile', CURRENT_TIMESTAMP)");
+        // two writers inserting the same new customer at once, neither saw the other's row
+        aggregates.recordWrites(List.of(customer(4, "Chile")), Map.of());
+        aggregates.recordWrites(List.of(customer(4, "Chile")), Map.of());
+        assertThat(aggregates.getTotal()).isEqualTo(5);
+
+        new CustomerAggregateReconciler(aggregateRepository, aggregates, registry(0)).reconcile();
+
+        assertThat(aggregates.getTotal()).isEqualTo(4);
+        assertThat(aggregates.getProcessed()).isEqualTo(2);
+        assertThat(aggregates.getByCountry()).containsExactly(
+                Map.entry("", 1L), Map.entry("Chile", 1L), Map.entry("Peru", 2L));
+        assertThat(aggregates.getByGender()).containsExactly(Map.entry("Female", 2L), Map.entry("Male", 2L));
+        assertThat(aggregateRepository.findDrift()).isEmpty();
+    }
+
+    @Test
+    void reconcilerWaitsUntilNoJobIsRunning() {
+        aggregates.run(null);
+        aggregates.recordWrites(List.of(customer(4, "Chile")), Map.of());
+
+        new CustomerAggregateReconciler(aggregateRepository, aggregates, registry(1)).reconcile();
+
+        assertThat(aggregates.getTotal()).isEqualTo(4);
+    }
+
+    private static RunningExecutionRegistry registry(int running) {
+        RunningExecutionRegistry registry = mock(RunningExecutionRegistry.class);
+        when(registry.getRunningCount()).thenReturn(running);
+        return registry;
+    }
+
+    private static Customer customer(long id, String country) {
+        return Customer.builder().id(id).gender("Female").country(country).processedAt(new Date()).build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.Spring_batch_kafka.service;
+
+import com.example.Spring_batch_kafka.dto.CustomerPage;
+import com.example.Spring_batch_kafka.entity.Customer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerCacheTest {
+
+    private final CaffeineCacheManager cacheManager = cacheManager();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CustomerCache customerCache = new CustomerCache(cacheManager, meterRegistry);
+
+    @Test
+    void refreshesCachedCustomersOnlyAfterCommit() {
+        Cache byId = cacheManager.getCache(CustomerCache.CUSTOMERS);
+        Cache byCountry = cacheManager.getCache(CustomerCache.CUSTOMERS_BY_COUNTRY);
+        byId.put(1L, customer(1, "Old", "Thailand"));
+        byCountry.put(CustomerCache.countryPage("Thailand", null, 10), lastPage(customer(1, "Old", "Thailand")));
+        byCountry.put(CustomerCache.countryPage("Japan", null, 10), lastPage());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            customerCache.refreshAfterCommit(List.of(customer(1, "New", "Thailand"), customer(2, "Other", "Thailand")));
+            assertThat(((Customer) byId.get(1L).get()).getFirstName()).isEqualTo("Old");
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(((Customer) byId.get(1L).get()).getFirstName()).isEqualTo("New");
+        assertThat(byId.get(2L)).isNull();
+        assertThat(byCountry.get(CustomerCache.countryPage("Thailand", null, 10))).isNull();
+        assertThat(byCountry.get(CustomerCache.countryPage("Japan", null, 10))).isNotNull();
+    }
+
+    @Test
+    void evictsOnlyThePagesWhoseIdRangeHoldsAWrittenCustomer() {
+        Cache byCountry = cacheManager.getCache(CustomerCache.CUSTOMERS_BY_COUNTRY);
+        CustomerPage first = CustomerPage.builder()
+                .customers(List.of(customer(1, "A", "Peru"), customer(5, "B", "Peru"))).size(2).nextAfterId(5L).build();
+        byCountry.put(CustomerCache.countryPage("Peru", null, 2), first);
+        byCountry.put(CustomerCache.countryPage("Peru", 5L, 2), lastPage(customer(9, "C", "Peru")));
+
+        customerCache.refresh(List.of(customer(12, "New", "Peru")));
+
+        assertThat(byCountry.get(CustomerCache.countryPage("Peru", null, 2))).isNotNull();
+        assertThat(byCountry.get(CustomerCache.countryPage("Peru", 5L, 2))).isNull();
+
+        customerCache.refresh(List.of(customer(3, "Inserted", "Peru")));
+
+        assertThat(byCountry.get(CustomerCache.countryPage("Peru", 0L, 2))).isNull();
+    }
+
+    @Test
+    void updateEvictsPreviousAndNewCountry() {
+        Cache byCountry = cacheManager.getCache(CustomerCache.CUSTOMERS_BY_COUNTRY);
+        byCountry.put(CustomerCache.countryPage("Thailand", null, 10), lastPage());
+        byCountry.put(CustomerCache.countryPage("Japan", null, 10), lastPage());
+        byCountry.put(CustomerCache.countryPage("Laos", null, 10), lastPage());
+
+        customerCache.updated(customer(1, "Moved", "Japan"), "Thailand");
+
+        assertThat(byCountry.get(CustomerCache.countryPage("Thailand", null, 10))).isNull();
+        assertThat(byCountry.get(CustomerCache.countryPage("Japan", null, 10))).isNull();
+        assertThat(byCountry.get(CustomerCache.countryPage("Laos", null, 10))).isNotNull();
+        assertThat(meterRegistry.get("cache.hit.ratio").tag("cache", CustomerCache.CUSTOMERS).gauge()).isNotNull();
+    }
+
+    private static CaffeineCacheManager cacheManager() {
+        CaffeineCacheManager manager = new CaffeineCacheManager(CustomerCache.CUSTOMERS, CustomerCache.CUSTOMERS_BY_COUNTRY);
+        manager.setCacheSpecification("maximumSize=100,recordStats");
+        return manager;
+    }
+
+    private static CustomerPage lastPage(Customer... customers) {
+        return CustomerPage.builder().customers(List.of(customers)).size(customers.length).build();
+    }
+
+    private static Customer customer(long id, String firstName, String country) {
+        return Customer.builder().id(id).firstName(firstName).country(country).build();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.Spring_batch_kafka.service;
+
+import com.example.Spring_batch_kafka.exception.message.BatchProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class JobLaunchQueueTest {
+
+    private EmbeddedDatabase database;
+    private JobRepository jobRepository;
+    private JobLaunchQueue queue;
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private long run;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:org/springframework/batch/core/schema-h2.sql")
+                .build();
+        JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+        factory.setDataSource(database);
+        factory.setTransactionManager(new DataSourceTransactionManager(database));
+        factory.afterPropertiesSet();
+        jobRepository = factory.getObject();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        queue.shutdown();
+        database.shutdown();
+    }
+
+    @Test
+    void higherPriorityLaunchesJumpAhead() throws Exception {
+        queue = new JobLaunchQueue(jobRepository, new SimpleMeterRegistry(), 10, 1, 1, "");
+
+        JobExecution first = queue.submit(job("bulk"), parameters(), 0);
+        queue.submit(job("backfill"), parameters(), -1);
+        queue.submit(job("adhoc"), parameters(), 5);
+
+        assertThat(first.getStatus()).isEqualTo(BatchStatus.STARTING);
+        assertThat(queue.getQueuedCount()).isEqualTo(2);
+        release.countDown();
+        awaitStarted(3);
+        assertThat(started).containsExactly("bulk", "adhoc", "backfill");
+    }
+
+    @Test
+    void perJobLimitLetsOtherJobsThrough() throws Exception {
+        queue = new JobLaunchQueue(jobRepository, new SimpleMeterRegistry(), 10, 3, 1, "reports=2");
+
+        queue.submit(job("import"), parameters(), 0);
+        JobExecution secondImport = queue.submit(job("import"), parameters(), 10);
+        queue.submit(job("reports"), parameters(), 0);
+        queue.submit(job("reports"), parameters(), 0);
+        awaitStarted(3);
+
+        assertThat(started).containsExactlyInAnyOrder("import", "reports", "reports");
+        assertThat(queue.getPosition(secondImport.getId())).isZero();
+        Map<String, Object> stats = queue.getStatistics();
+        assertThat(stats).containsEntry("queued", 1).containsEntry("running", 3);
+        assertThat(stats.get("queuedByJob")).isEqualTo(Map.of("import", 1));
+    }
+
+    @Test
+    void fullQueueRejectsWithoutCreatingAnExecution() throws Exception {
+        queue = new JobLaunchQueue(jobRepository, new SimpleMeterRegistry(), 1, 1, 1, "");
+
+        queue.submit(job("import"), parameters(), 0);
+        JobExecution waiting = queue.submit(job("import"), parameters(), 0);
+        JobParameters rejected = parameters();
+
+        assertThatThrownBy(() -> queue.submit(job("import"), rejected, 0))
+                .isInstanceOf(BatchProcessingException.class)
+                .extracting("errorCode").isEqualTo(JobLaunchQueue.QUEUE_FULL);
+        assertThat(jobRepository.getJobInstance("import", rejected)).isNull();
+
+        queue.shutdown();
+        assertThat(jobRepository.getLastJobExecution("import", waiting.getJobParameters()).getStatus())
+                .isEqualTo(BatchStatus.STOPPED);
+    }
+
+    @Test
+    void createsTheExecutionOutsideTheLockAndReleasesTheSlotIfItFails() throws Exception {
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        JobRepository slowRepository = mock(JobRepository.class, AdditionalAnswers.delegatesTo(jobRepository));
+        doAnswer(invocation -> {
+            creating.countDown();
+            proceed.await(10, TimeUnit.SECONDS);
+            throw new IllegalStateException("batch database unavailable");
+        }).doAnswer(invocation -> jobRepository.createJobExecution(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(slowRepository).createJobExecution(any(), any());
+        queue = new JobLaunchQueue(slowRepository, new SimpleMeterRegistry(), 1, 1, 1, "");
+
+        CompletableFuture<JobExecution> failing = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.submit(job("import"), parameters(), 0);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+        assertThat(creating.await(5, TimeUnit.SECONDS)).isTrue();
+        // not blocked by the submit waiting on the repository, whose slot is taken
+        assertThat(queue.getQueuedCount()).isZero();
+        assertThatThrownBy(() -> queue.submit(job("import"), parameters(), 0))
+                .extracting("errorCode").isEqualTo(JobLaunchQueue.QUEUE_FULL);
+
+        proceed.countDown();
+        assertThatThrownBy(failing::join).hasRootCauseMessage("batch database unavailable");
+        assertThat(queue.submit(job("import"), parameters(), 0).getStatus()).isEqualTo(BatchStatus.STARTING);
+    }
+
+    private JobParameters parameters() {
+        return new JobParametersBuilder().addLong("run", ++run).toJobParameters();
+    }
+
+    private void awaitStarted(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (started.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private Job job(String name) {
+        return new Job() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public void execute(JobExecution execution) {
+                started.add(name);
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                execution.setStatus(BatchStatus.COMPLETED);
+                execution.setExitStatus(ExitStatus.COMPLETED);
+            }
+        };
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.Spring_batch_kafka.writer;
+
+import com.example.Spring_batch_kafka.entity.Customer;
+import com.example.Spring_batch_kafka.repository.CustomerAggregateRepository;
+import com.example.Spring_batch_kafka.service.CustomerAggregates;
+import com.example.Spring_batch_kafka.service.CustomerCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class CustomerJdbcWriterTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private CustomerAggregates aggregates;
+    private CustomerJdbcWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE customers (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                + " first_name VARCHAR(255), last_name VARCHAR(255), email VARCHAR(255), gender VARCHAR(255),"
+                + " contact_no VARCHAR(255), country VARCHAR(255), dob VARCHAR(255),"
+                + " processed_at TIMESTAMP(6), processed_by VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE customer_aggregates (dimension VARCHAR(16), dim_value VARCHAR(255),"
+                + " shard INT, customer_count BIGINT NOT NULL, PRIMARY KEY (dimension, dim_value, shard))");
+        aggregates = new CustomerAggregates(
+                new CustomerAggregateRepository(new NamedParameterJdbcTemplate(jdbcTemplate)), 4);
+        writer = new CustomerJdbcWriter(jdbcTemplate,
+                new CustomerCache(new NoOpCacheManager(), new SimpleMeterRegistry()), aggregates, false, "insert");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void insertsWholeChunkWithCsvIds() throws Exception {
+        writer.write(new Chunk<>(customer(10, "Ann", "Peru"), customer(20, "Bob", "Chile")));
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM customers ORDER BY id", Long.class))
+                .containsExactly(10L, 20L);
+        assertThat(jdbcTemplate.queryForObject("SELECT processed_by FROM customers WHERE id = 10", String.class))
+                .isEqualTo("worker-1");
+    }
+
+    @Test
+    void insertModeRejectsDuplicateIds() throws Exception {
+        writer.write(new Chunk<>(customer(1, "Ann", "Peru")));
+
+        assertThatThrownBy(() -> writer.write(new Chunk<>(customer(1, "Ann", "Peru"))))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void upsertModeUpdatesExistingRowsAndInsertsNewOnes() throws Exception {
+        writer.write(new Chunk<>(customer(1, "Ann", "Peru"), customer(2, "Bob", "Chile")));
+
+        writer.write(new Chunk<>(customer(2, "Robert", "Japan"), customer(3, "Cid", "Peru")), WriteMode.UPSERT);
+
+        List<String> rows = jdbcTemplate.queryForList(
+                "SELECT id || ':' || first_name || ':' || country FROM customers ORDER BY id", String.class);
+        assertThat(rows).containsExactly("1:Ann:Peru", "2:Robert:Japan", "3:Cid:Peru");
+        assertThat(aggregates.getTotal()).isEqualTo(3);
+        assertThat(aggregates.getByCountry()).containsExactly(
+                Map.entry("Japan", 1L), Map.entry("Peru", 2L));
+
+        aggregates.resync();
+        assertThat(aggregates.getTotal()).isEqualTo(3);
+        assertThat(aggregates.getCountryCount("Chile")).isZero();
+    }
+
+    @Test
+    void upsertInATransactionReadsCustomersOnlyWhenAnIdAlreadyExists() {
+        CustomerAggregates spied = spy(aggregates);
+        CustomerJdbcWriter upserts = new CustomerJdbcWriter(jdbcTemplate,
+                new CustomerCache(new NoOpCacheManager(), new SimpleMeterRegistry()), spied, false, "upsert");
+        TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(database));
+
+        transactions.executeWithoutResult(status -> write(upserts, customer(1, "Ann", "Peru"), customer(2, "Bob", "Chile")));
+        verify(spied, never()).findExisting(any());
+
+        transactions.executeWithoutResult(status -> write(upserts, customer(3, "Cid", "Peru"), customer(2, "Bob", "Japan")));
+        verify(spied).findExisting(any());
+
+        assertThat(jdbcTemplate.queryForList("SELECT id || ':' || country FROM customers ORDER BY id", String.class))
+                .containsExactly("1:Peru", "2:Japan", "3:Peru");
+        assertThat(spied.getTotal()).isEqualTo(3);
+        assertThat(spied.getByCountry()).containsExactly(Map.entry("Japan", 1L), Map.entry("Peru", 2L));
+    }
+
+    @Test
+    void defaultModeLetsAnImportBeRerunOverALoadedTable() throws Exception {
+        CustomerJdbcWriter defaults = new CustomerJdbcWriter(jdbcTemplate,
+                new CustomerCache(new NoOpCacheManager(), new SimpleMeterRegistry()), aggregates, false, "");
+        defaults.write(new Chunk<>(customer(1, "Ann", "Peru"), customer(2, "Bob", "Chile")));
+
+        defaults.write(new Chunk<>(customer(1, "Ann", "Peru"), customer(2, "Bob", "Chile")));
+
+        assertThat(defaults.getDefaultMode()).isEqualTo(WriteMode.UPSERT);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers", Long.class)).isEqualTo(2);
+        assertThat(aggregates.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    void upsertSqlMatchesDialect() {
+        assertThat(CustomerJdbcWriter.upsertSql(SqlDialect.MYSQL))
+                .contains("ON DUPLICATE KEY UPDATE").contains("country = VALUES(country)");
+        assertThat(CustomerJdbcWriter.upsertSql(SqlDialect.H2)).startsWith("MERGE INTO customers").contains("KEY (id)");
+        assertThat(CustomerJdbcWriter.upsertSql(SqlDialect.POSTGRES))
+                .contains("ON CONFLICT (id) DO UPDATE SET").contains("country = EXCLUDED.country");
+    }
+
+    private static void write(CustomerJdbcWriter writer, Customer... customers) {
+        try {
+            writer.write(new Chunk<>(customers));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Customer customer(long id, String firstName, String country) {
+        return Customer.builder()
+                .id(id)
+                .firstName(firstName)
+                .lastName("Last")
+                .email(firstName.toLowerCase() + "@example.com")
+                .gender("Female")
+                .contactNo("555-0100")
+                .country(country)
+                .dob("01/01/1990")
+                .processedAt(new Date())
+                .processedBy("worker-1")
+                .build();
+    }
+}